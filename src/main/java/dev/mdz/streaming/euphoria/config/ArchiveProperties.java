@@ -0,0 +1,19 @@
+package dev.mdz.streaming.euphoria.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Settings for serving members of ZIP/TAR container files. */
+@ConfigurationProperties(prefix = "euphoria.archives")
+public class ArchiveProperties {
+
+  /** Maximum number of container files whose index is kept in memory. */
+  private int maxCachedIndexes = 64;
+
+  public int getMaxCachedIndexes() {
+    return maxCachedIndexes;
+  }
+
+  public void setMaxCachedIndexes(int maxCachedIndexes) {
+    this.maxCachedIndexes = maxCachedIndexes;
+  }
+}
@@ -0,0 +1,75 @@
+package dev.mdz.streaming.euphoria.config;
+
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/** Settings of the content hashes used as strong ETags. */
+@ConfigurationProperties(prefix = "euphoria.content-hash")
+public class ContentHashProperties {
+
+  /** Directory the computed hashes are persisted to, so they survive restarts. */
+  private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "euphoria-hashes");
+
+  private boolean enabled = false;
+
+  /** Maximum number of hashes kept in memory, least recently used first out. */
+  private int maxCachedHashes = 100_000;
+
+  /** Resources larger than this are not hashed and keep their (weak) default ETag. */
+  private DataSize maxFileSize = DataSize.ofGigabytes(2);
+
+  /** Maximum number of resources waiting to be hashed, further resources are skipped. */
+  private int queueCapacity = 1000;
+
+  /** Number of threads computing hashes. */
+  private int threads = 1;
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory(Path directory) {
+    this.directory = directory;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getMaxCachedHashes() {
+    return maxCachedHashes;
+  }
+
+  public void setMaxCachedHashes(int maxCachedHashes) {
+    this.maxCachedHashes = maxCachedHashes;
+  }
+
+  public DataSize getMaxFileSize() {
+    return maxFileSize;
+  }
+
+  public void setMaxFileSize(DataSize maxFileSize) {
+    this.maxFileSize = maxFileSize;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+}
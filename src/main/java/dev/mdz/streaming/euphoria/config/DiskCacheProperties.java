@@ -0,0 +1,86 @@
+package dev.mdz.streaming.euphoria.config;
+
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/** Settings of the local disk cache in front of slow (network) storage. */
+@ConfigurationProperties(prefix = "euphoria.cache.disk")
+public class DiskCacheProperties {
+
+  /** Size of the cached blocks, resources are cached block by block. */
+  private DataSize blockSize = DataSize.ofMegabytes(4);
+
+  /** Directory of the cached blocks, should be on a fast local disk. */
+  private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "euphoria-cache");
+
+  private boolean enabled = false;
+
+  /** Maximum number of blocks waiting to be copied to the cache, further blocks are skipped. */
+  private int fillQueueCapacity = 256;
+
+  /** Number of threads copying blocks to the cache. */
+  private int fillThreads = 2;
+
+  /** Quota of the cache directory, least recently used blocks are evicted first. */
+  private DataSize maxSize = DataSize.ofGigabytes(10);
+
+  /** Number of reads of an uncached block before it is copied to the cache. */
+  private int minHits = 2;
+
+  public DataSize getBlockSize() {
+    return blockSize;
+  }
+
+  public void setBlockSize(DataSize blockSize) {
+    this.blockSize = blockSize;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public void setDirectory(Path directory) {
+    this.directory = directory;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getFillQueueCapacity() {
+    return fillQueueCapacity;
+  }
+
+  public void setFillQueueCapacity(int fillQueueCapacity) {
+    this.fillQueueCapacity = fillQueueCapacity;
+  }
+
+  public int getFillThreads() {
+    return fillThreads;
+  }
+
+  public void setFillThreads(int fillThreads) {
+    this.fillThreads = fillThreads;
+  }
+
+  public DataSize getMaxSize() {
+    return maxSize;
+  }
+
+  public void setMaxSize(DataSize maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public int getMinHits() {
+    return minHits;
+  }
+
+  public void setMinHits(int minHits) {
+    this.minHits = minHits;
+  }
+}
@@ -0,0 +1,75 @@
+package dev.mdz.streaming.euphoria.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/** Settings of the detection of frequently requested resources and byte regions. */
+@ConfigurationProperties(prefix = "euphoria.hotspots")
+public class HotspotProperties {
+
+  /** Size of the regions requested offsets are aligned to, e.g. the block size of the cache. */
+  private DataSize blockSize = DataSize.ofMegabytes(4);
+
+  /** Number of rows of the count-min sketches, more rows make overestimates less likely. */
+  private int depth = 4;
+
+  private boolean enabled = false;
+
+  /** Number of most frequent resources and regions reported per window. */
+  private int topK = 20;
+
+  /** Number of counters per row of the count-min sketches (rounded up to a power of two). */
+  private int width = 4096;
+
+  /** Length of the time windows the frequencies are counted in. */
+  private Duration window = Duration.ofMinutes(1);
+
+  public DataSize getBlockSize() {
+    return blockSize;
+  }
+
+  public void setBlockSize(DataSize blockSize) {
+    this.blockSize = blockSize;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public void setDepth(int depth) {
+    this.depth = depth;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getTopK() {
+    return topK;
+  }
+
+  public void setTopK(int topK) {
+    this.topK = topK;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public void setWidth(int width) {
+    this.width = width;
+  }
+
+  public Duration getWindow() {
+    return window;
+  }
+
+  public void setWindow(Duration window) {
+    this.window = window;
+  }
+}
@@ -0,0 +1,81 @@
+package dev.mdz.streaming.euphoria.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings of HTTP/2 on the embedded Tomcat: h2 on TLS connectors (negotiated with ALPN), h2c on
+ * plain connectors (with prior knowledge or upgrade, e.g. behind a reverse proxy).
+ */
+@ConfigurationProperties(prefix = "euphoria.http2")
+public class Http2Properties {
+
+  private boolean enabled = false;
+
+  /**
+   * Flow control window announced to the client for each stream (the window of the response streams
+   * is announced by the client).
+   */
+  private DataSize initialWindowSize = DataSize.ofKilobytes(64);
+
+  /** Time an idle connection without open streams is kept open. */
+  private Duration keepAliveTimeout = Duration.ofSeconds(20);
+
+  /** Maximum number of streams (e.g. parallel range requests) a client may open per connection. */
+  private long maxConcurrentStreams = 100;
+
+  /** Maximum number of streams per connection processed at the same time, others are queued. */
+  private int maxConcurrentStreamExecution = 20;
+
+  /** Time a stream waits for the client's flow control window before it is reset. */
+  private Duration streamWriteTimeout = Duration.ofSeconds(20);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public DataSize getInitialWindowSize() {
+    return initialWindowSize;
+  }
+
+  public void setInitialWindowSize(DataSize initialWindowSize) {
+    this.initialWindowSize = initialWindowSize;
+  }
+
+  public Duration getKeepAliveTimeout() {
+    return keepAliveTimeout;
+  }
+
+  public void setKeepAliveTimeout(Duration keepAliveTimeout) {
+    this.keepAliveTimeout = keepAliveTimeout;
+  }
+
+  public long getMaxConcurrentStreams() {
+    return maxConcurrentStreams;
+  }
+
+  public void setMaxConcurrentStreams(long maxConcurrentStreams) {
+    this.maxConcurrentStreams = maxConcurrentStreams;
+  }
+
+  public int getMaxConcurrentStreamExecution() {
+    return maxConcurrentStreamExecution;
+  }
+
+  public void setMaxConcurrentStreamExecution(int maxConcurrentStreamExecution) {
+    this.maxConcurrentStreamExecution = maxConcurrentStreamExecution;
+  }
+
+  public Duration getStreamWriteTimeout() {
+    return streamWriteTimeout;
+  }
+
+  public void setStreamWriteTimeout(Duration streamWriteTimeout) {
+    this.streamWriteTimeout = streamWriteTimeout;
+  }
+}
@@ -0,0 +1,81 @@
+package dev.mdz.streaming.euphoria.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Settings for resources on HTTP(S) origin servers, e.g. object stores. */
+@ConfigurationProperties(prefix = "euphoria.http")
+public class HttpOriginProperties {
+
+  /** Maximum time to establish a connection to an origin server. */
+  private Duration connectTimeout = Duration.ofSeconds(5);
+
+  /** Number of consecutive failures of an origin server that open its circuit breaker. */
+  private int failureThreshold = 5;
+
+  /** Maximum number of resources whose metadata is kept in memory. */
+  private int maxCachedMetadata = 10_000;
+
+  /**
+   * Age of cached metadata after which it is revalidated with a conditional HEAD request (using the
+   * ETag of the origin).
+   */
+  private Duration metadataTtl = Duration.ofSeconds(60);
+
+  /** Time an open circuit breaker rejects requests before a single trial request is let through. */
+  private Duration openDuration = Duration.ofSeconds(30);
+
+  /**
+   * Maximum time to wait for the response headers of an origin server and for each read of a
+   * response body.
+   */
+  private Duration readTimeout = Duration.ofSeconds(30);
+
+  public Duration getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  public void setConnectTimeout(Duration connectTimeout) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  public int getFailureThreshold() {
+    return failureThreshold;
+  }
+
+  public void setFailureThreshold(int failureThreshold) {
+    this.failureThreshold = failureThreshold;
+  }
+
+  public int getMaxCachedMetadata() {
+    return maxCachedMetadata;
+  }
+
+  public void setMaxCachedMetadata(int maxCachedMetadata) {
+    this.maxCachedMetadata = maxCachedMetadata;
+  }
+
+  public Duration getMetadataTtl() {
+    return metadataTtl;
+  }
+
+  public void setMetadataTtl(Duration metadataTtl) {
+    this.metadataTtl = metadataTtl;
+  }
+
+  public Duration getOpenDuration() {
+    return openDuration;
+  }
+
+  public void setOpenDuration(Duration openDuration) {
+    this.openDuration = openDuration;
+  }
+
+  public Duration getReadTimeout() {
+    return readTimeout;
+  }
+
+  public void setReadTimeout(Duration readTimeout) {
+    this.readTimeout = readTimeout;
+  }
+}
@@ -0,0 +1,90 @@
+package dev.mdz.streaming.euphoria.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/** Settings of the follow mode for files that are still being recorded. */
+@ConfigurationProperties(prefix = "euphoria.live")
+public class LiveProperties {
+
+  /** Size of the chunks read from the file and written to the client. */
+  private DataSize bufferSize = DataSize.ofKilobytes(64);
+
+  private boolean enabled = false;
+
+  /** A response ends if the file did not grow for this long, even if it is still marked live. */
+  private Duration idleTimeout = Duration.ofSeconds(60);
+
+  /**
+   * A file is live while a marker file with the same name and this suffix exists, e.g. <code>
+   * lecture42.mp4.live</code>. The recorder creates the marker before and removes it after writing
+   * the file.
+   */
+  private String markerSuffix = ".live";
+
+  /** Longest interval between two checks for appended data, while the file does not grow. */
+  private Duration maxPollInterval = Duration.ofSeconds(2);
+
+  /** Shortest interval between two checks for appended data, used while the file grows. */
+  private Duration minPollInterval = Duration.ofMillis(200);
+
+  /** Number of threads checking the followed files, shared by all clients. */
+  private int pollThreads = 1;
+
+  public DataSize getBufferSize() {
+    return bufferSize;
+  }
+
+  public void setBufferSize(DataSize bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  public void setIdleTimeout(Duration idleTimeout) {
+    this.idleTimeout = idleTimeout;
+  }
+
+  public String getMarkerSuffix() {
+    return markerSuffix;
+  }
+
+  public void setMarkerSuffix(String markerSuffix) {
+    this.markerSuffix = markerSuffix;
+  }
+
+  public Duration getMaxPollInterval() {
+    return maxPollInterval;
+  }
+
+  public void setMaxPollInterval(Duration maxPollInterval) {
+    this.maxPollInterval = maxPollInterval;
+  }
+
+  public Duration getMinPollInterval() {
+    return minPollInterval;
+  }
+
+  public void setMinPollInterval(Duration minPollInterval) {
+    this.minPollInterval = minPollInterval;
+  }
+
+  public int getPollThreads() {
+    return pollThreads;
+  }
+
+  public void setPollThreads(int pollThreads) {
+    this.pollThreads = pollThreads;
+  }
+}
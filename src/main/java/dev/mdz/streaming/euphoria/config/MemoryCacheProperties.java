@@ -0,0 +1,56 @@
+package dev.mdz.streaming.euphoria.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/** Settings of the in-memory cache of complete responses for small resources. */
+@ConfigurationProperties(prefix = "euphoria.cache.memory")
+public class MemoryCacheProperties {
+
+  private boolean enabled = false;
+
+  /** Resources up to this size are kept in memory, larger ones are always streamed. */
+  private DataSize maxFileSize = DataSize.ofMegabytes(1);
+
+  /** Memory budget of all cached resources, least recently used ones are evicted first. */
+  private DataSize maxSize = DataSize.ofMegabytes(256);
+
+  /**
+   * Age of a cached resource after which it is resolved again to check size and modification time,
+   * a changed resource is reloaded.
+   */
+  private Duration revalidateAfter = Duration.ofSeconds(10);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public DataSize getMaxFileSize() {
+    return maxFileSize;
+  }
+
+  public void setMaxFileSize(DataSize maxFileSize) {
+    this.maxFileSize = maxFileSize;
+  }
+
+  public DataSize getMaxSize() {
+    return maxSize;
+  }
+
+  public void setMaxSize(DataSize maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public Duration getRevalidateAfter() {
+    return revalidateAfter;
+  }
+
+  public void setRevalidateAfter(Duration revalidateAfter) {
+    this.revalidateAfter = revalidateAfter;
+  }
+}
@@ -0,0 +1,44 @@
+package dev.mdz.streaming.euphoria.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Settings of the batch metadata lookup. */
+@ConfigurationProperties(prefix = "euphoria.metadata")
+public class MetadataProperties {
+
+  /** Maximum number of resources per request, larger batches are rejected. */
+  private int maxBatchSize = 1000;
+
+  /**
+   * Maximum number of lookups waiting for a thread, further lookups are done by the request thread
+   * itself.
+   */
+  private int queueCapacity = 1000;
+
+  /** Number of threads resolving resources, shared by all requests. */
+  private int threads = 8;
+
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  public void setMaxBatchSize(int maxBatchSize) {
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+}
@@ -0,0 +1,27 @@
+package dev.mdz.streaming.euphoria.config;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/** Settings of the handling of byte range requests. */
+@ConfigurationProperties(prefix = "euphoria.ranges")
+public class RangeProperties {
+
+  /**
+   * Maximum length of open-ended ranges (e.g. <code>bytes=0-</code>) per MIME type, either exact (
+   * <code>video/mp4</code>) or by main type (<code>video/*</code>). Such ranges are answered with a
+   * chunk of this length instead of the remainder of the resource, clients request the next chunk
+   * when they need it. MIME types without a limit are not capped.
+   */
+  private final Map<String, DataSize> openEndedLimits = new LinkedHashMap<>();
+
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP",
+      justification = "The map is filled by the configuration binder")
+  public Map<String, DataSize> getOpenEndedLimits() {
+    return openEndedLimits;
+  }
+}
@@ -0,0 +1,48 @@
+package dev.mdz.streaming.euphoria.config;
+
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HTTP/2 on the embedded Tomcat.
+ *
+ * <p>Players and download accelerators fetch several ranges of a resource in parallel: with HTTP/2
+ * these are streams multiplexed on one connection instead of one connection (and TLS handshake)
+ * each. If <code>server.http2.enabled</code> is set as well, the protocol added by Spring Boot is
+ * tuned instead of adding a second one.
+ */
+@Configuration
+public class SpringConfigHttp2 {
+
+  @Bean
+  public WebServerFactoryCustomizer<TomcatServletWebServerFactory> http2Customizer(
+      Http2Properties properties) {
+    return factory -> {
+      if (!properties.isEnabled()) {
+        return;
+      }
+      factory.addConnectorCustomizers(
+          connector -> {
+            Http2Protocol http2 = null;
+            for (UpgradeProtocol protocol : connector.findUpgradeProtocols()) {
+              if (protocol instanceof Http2Protocol) {
+                http2 = (Http2Protocol) protocol;
+              }
+            }
+            if (http2 == null) {
+              http2 = new Http2Protocol();
+              connector.addUpgradeProtocol(http2);
+            }
+            http2.setInitialWindowSize((int) properties.getInitialWindowSize().toBytes());
+            http2.setKeepAliveTimeout(properties.getKeepAliveTimeout().toMillis());
+            http2.setMaxConcurrentStreams(properties.getMaxConcurrentStreams());
+            http2.setMaxConcurrentStreamExecution(properties.getMaxConcurrentStreamExecution());
+            http2.setStreamWriteTimeout(properties.getStreamWriteTimeout().toMillis());
+          });
+    };
+  }
+}
@@ -1,5 +1,6 @@
 package dev.mdz.streaming.euphoria.config;
 
+import dev.mdz.streaming.euphoria.warmup.WarmupEndpoint;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.boot.actuate.health.HealthEndpoint;
@@ -38,10 +39,16 @@ public class SpringConfigSecurity extends WebSecurityConfigurerAdapter {
         .permitAll()
         .requestMatchers(EndpointRequest.to("prometheus", "version"))
         .permitAll()
+        .requestMatchers(EndpointRequest.to(WarmupEndpoint.class))
+        .hasRole("ACTUATOR")
         .requestMatchers(EndpointRequest.toAnyEndpoint())
         .hasRole("ACTUATOR")
         .and()
-        .httpBasic();
+        .httpBasic()
+        .and()
+        // write operations are called by scripts with basic auth, not by browsers
+        .csrf()
+        .ignoringRequestMatchers(EndpointRequest.to(WarmupEndpoint.class));
   }
 
   private PasswordEncoder passwordEncoderDummy() {
@@ -0,0 +1,44 @@
+package dev.mdz.streaming.euphoria.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Settings of the per-phase latency tracing of streaming requests. */
+@ConfigurationProperties(prefix = "euphoria.tracing")
+public class TracingProperties {
+
+  private boolean enabled = false;
+
+  /** Number of slow requests kept in memory, older ones are overwritten. */
+  private int slowRequests = 100;
+
+  /**
+   * Requests taking at least this long until their content is transferred (i.e. all phases but the
+   * transfer) are captured with their phases.
+   */
+  private Duration slowThreshold = Duration.ofSeconds(1);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getSlowRequests() {
+    return slowRequests;
+  }
+
+  public void setSlowRequests(int slowRequests) {
+    this.slowRequests = slowRequests;
+  }
+
+  public Duration getSlowThreshold() {
+    return slowThreshold;
+  }
+
+  public void setSlowThreshold(Duration slowThreshold) {
+    this.slowThreshold = slowThreshold;
+  }
+}
@@ -0,0 +1,65 @@
+package dev.mdz.streaming.euphoria.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/** Settings of the warm-up of resources ahead of scheduled high demand. */
+@ConfigurationProperties(prefix = "euphoria.warmup")
+public class WarmupProperties {
+
+  /** Number of bytes read from the start of each resource. */
+  private DataSize headSize = DataSize.ofMegabytes(1);
+
+  /** Number of finished warm-up jobs kept for reporting. */
+  private int maxJobs = 20;
+
+  /** Number of bytes read from the end of each resource (e.g. MP4 metadata at the end). */
+  private DataSize tailSize = DataSize.ofMegabytes(1);
+
+  /** How long warmed up resources are pinned in the disk cache if a job does not specify it. */
+  private Duration pinDuration = Duration.ofMinutes(60);
+
+  /** Number of resources warmed up in parallel. */
+  private int threads = 2;
+
+  public DataSize getHeadSize() {
+    return headSize;
+  }
+
+  public void setHeadSize(DataSize headSize) {
+    this.headSize = headSize;
+  }
+
+  public int getMaxJobs() {
+    return maxJobs;
+  }
+
+  public void setMaxJobs(int maxJobs) {
+    this.maxJobs = maxJobs;
+  }
+
+  public Duration getPinDuration() {
+    return pinDuration;
+  }
+
+  public void setPinDuration(Duration pinDuration) {
+    this.pinDuration = pinDuration;
+  }
+
+  public DataSize getTailSize() {
+    return tailSize;
+  }
+
+  public void setTailSize(DataSize tailSize) {
+    this.tailSize = tailSize;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+}
@@ -0,0 +1,107 @@
+package dev.mdz.streaming.euphoria.config;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/** Settings of the separation of short document requests from long media streams. */
+@ConfigurationProperties(prefix = "euphoria.workload")
+public class WorkloadProperties {
+
+  /**
+   * Responses of these MIME types (exact or by main type) up to the maximum length are documents.
+   */
+  private List<String> documentMimeTypes =
+      new ArrayList<>(List.of("application/pdf", "application/xml", "text/*", "image/*"));
+
+  /** Responses of document MIME types longer than this are streams. */
+  private DataSize documentMaxLength = DataSize.ofMegabytes(64);
+
+  private final Pool documents = new Pool(16, 200);
+
+  private boolean enabled = false;
+
+  /** Responses up to this length are documents, whatever their MIME type (e.g. probing ranges). */
+  private DataSize shortLength = DataSize.ofMegabytes(1);
+
+  private final Pool streams = new Pool(200, 50);
+
+  public List<String> getDocumentMimeTypes() {
+    return List.copyOf(documentMimeTypes);
+  }
+
+  public void setDocumentMimeTypes(List<String> documentMimeTypes) {
+    this.documentMimeTypes = List.copyOf(documentMimeTypes);
+  }
+
+  public DataSize getDocumentMaxLength() {
+    return documentMaxLength;
+  }
+
+  public void setDocumentMaxLength(DataSize documentMaxLength) {
+    this.documentMaxLength = documentMaxLength;
+  }
+
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP",
+      justification = "The settings are filled by the configuration binder")
+  public Pool getDocuments() {
+    return documents;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public DataSize getShortLength() {
+    return shortLength;
+  }
+
+  public void setShortLength(DataSize shortLength) {
+    this.shortLength = shortLength;
+  }
+
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP",
+      justification = "The settings are filled by the configuration binder")
+  public Pool getStreams() {
+    return streams;
+  }
+
+  /** Settings of the executor of a workload class. */
+  public static class Pool {
+
+    /** Maximum number of responses waiting for a thread, further requests are rejected (503). */
+    private int queueCapacity;
+
+    /** Number of threads writing responses of the class. */
+    private int threads;
+
+    public Pool(int threads, int queueCapacity) {
+      this.threads = threads;
+      this.queueCapacity = queueCapacity;
+    }
+
+    public int getQueueCapacity() {
+      return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+    }
+
+    public int getThreads() {
+      return threads;
+    }
+
+    public void setThreads(int threads) {
+      this.threads = threads;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package dev.mdz.streaming.euphoria.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.catalina.connector.ClientAbortException;
+import org.apache.coyote.CloseNowException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells clients going away apart from real I/O errors and records how much of their responses was
+ * left unsent.
+ *
+ * <p>Players drop the connection (or reset the HTTP/2 stream) of the current range whenever they
+ * seek, so aborted responses are normal operation and not worth an error log.
+ *
+ * <p>Metrics: <code>euphoria.aborts.position</code> (bytes of the range written before the client
+ * went away, its count is the number of aborts) and <code>euphoria.aborts.unsent</code> (bytes of
+ * the range not written), both tagged by the main MIME type.
+ */
+@Component
+class ClientAborts {
+
+  private final MeterRegistry meterRegistry;
+  private final Map<String, DistributionSummary> positions = new ConcurrentHashMap<>();
+  private final Map<String, Counter> unsent = new ConcurrentHashMap<>();
+
+  ClientAborts(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * @param e an exception raised while writing a response
+   * @return true if the exception was caused by the client closing the connection or stream
+   */
+  static boolean isClientAbort(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ClientAbortException || cause instanceof CloseNowException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Records an aborted range.
+   *
+   * @param contentType the MIME type of the resource
+   * @param length the length of the range
+   * @param written the number of bytes written before the client went away
+   */
+  void record(String contentType, long length, long written) {
+    String type = RangePolicy.getMainType(contentType);
+    positions
+        .computeIfAbsent(
+            type,
+            key ->
+                DistributionSummary.builder("euphoria.aborts.position")
+                    .baseUnit("bytes")
+                    .tag("type", key)
+                    .register(meterRegistry))
+        .record(written);
+    unsent
+        .computeIfAbsent(
+            type,
+            key ->
+                Counter.builder("euphoria.aborts.unsent")
+                    .baseUnit("bytes")
+                    .tag("type", key)
+                    .register(meterRegistry))
+        .increment(Math.max(0, length - written));
+  }
+}
@@ -0,0 +1,199 @@
+package dev.mdz.streaming.euphoria.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.digitalcollections.model.exception.ResourceIOException;
+import de.digitalcollections.model.exception.ResourceNotFoundException;
+import dev.mdz.streaming.euphoria.config.MetadataProperties;
+import dev.mdz.streaming.euphoria.controller.StreamingController.ResourceInfo;
+import dev.mdz.streaming.euphoria.hash.ContentHashService;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import dev.mdz.streaming.euphoria.resource.StreamingResourceService;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Returns size, MIME type, ETag and Last-Modified of many resources in one request, e.g. for a
+ * result page listing hundreds of media items:
+ *
+ * <pre>
+ * POST /stream/metadata
+ * [{"id": "lecture42", "extension": "mp4"}, {"id": "lecture43", "extension": "mp3"}]
+ * </pre>
+ *
+ * <p>The resources are resolved in parallel on a bounded pool shared by all requests, if its queue
+ * is full the request thread resolves them itself. The results are written in request order as soon
+ * as they are available, so large batches are not buffered in memory. Resources that can't be found
+ * are returned with <code>"found": false</code>, invalid items (without id or extension) and failed
+ * lookups additionally with an <code>"error"</code>.
+ */
+@RestController
+public class MetadataController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetadataController.class);
+
+  @Autowired ContentHashService contentHashService;
+  @Autowired ObjectMapper objectMapper;
+  @Autowired StreamingResourceService streamingResourceService;
+
+  private final ThreadPoolExecutor executor;
+  private final int maxBatchSize;
+
+  public MetadataController(MetadataProperties properties) {
+    this.maxBatchSize = properties.getMaxBatchSize();
+    this.executor =
+        new ThreadPoolExecutor(
+            properties.getThreads(),
+            properties.getThreads(),
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+            new CustomizableThreadFactory("metadata-"),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  @PostMapping(value = "/stream/metadata", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public void getMetadata(@RequestBody List<MetadataRequest> items, HttpServletResponse response)
+      throws IOException {
+    if (items.size() > maxBatchSize) {
+      LOGGER.warn(
+          "*** Response {}: Batch of {} resources exceeds the maximum of {}",
+          HttpServletResponse.SC_BAD_REQUEST,
+          items.size(),
+          maxBatchSize);
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+      return;
+    }
+
+    List<Future<ResourceInfo>> lookups = new ArrayList<>(items.size());
+    for (MetadataRequest item : items) {
+      lookups.add(
+          isValid(item)
+              ? executor.submit(() -> lookup(item.getId(), item.getExtension()))
+              : CompletableFuture.completedFuture(null));
+    }
+
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    // lookups not written yet, e.g. after the client went away, are not needed anymore
+    try (JsonGenerator json =
+        objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+      json.writeStartArray();
+      for (int i = 0; i < items.size(); i++) {
+        MetadataRequest item = items.get(i);
+        if (!isValid(item)) {
+          writeError(json, item, "Missing id or extension");
+          continue;
+        }
+        ResourceInfo resourceInfo;
+        try {
+          resourceInfo = lookups.get(i).get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while resolving resources", e);
+        } catch (ExecutionException e) {
+          LOGGER.warn("Error resolving resource {}.{}", item.getId(), item.getExtension(), e);
+          writeError(json, item, "Error resolving resource");
+          continue;
+        }
+        writeMetadata(json, item, resourceInfo);
+      }
+      json.writeEndArray();
+    } finally {
+      lookups.forEach(lookup -> lookup.cancel(true));
+    }
+  }
+
+  private static boolean isValid(MetadataRequest item) {
+    return item != null
+        && StringUtils.hasText(item.getId())
+        && StringUtils.hasText(item.getExtension());
+  }
+
+  /**
+   * Resolves the given resource.
+   *
+   * @return the metadata or <code>null</code> if the resource can't be found
+   */
+  private ResourceInfo lookup(String id, String extension) {
+    try {
+      StreamingResource resource = streamingResourceService.find(id, extension);
+      ResourceInfo resourceInfo =
+          new ResourceInfo(id, resource, contentHashService.getHash(resource));
+      return resourceInfo.length > 0 ? resourceInfo : null;
+    } catch (ResourceIOException | ResourceNotFoundException e) {
+      LOGGER.debug("Resource {}.{} not found: {}", id, extension, e.getMessage());
+      return null;
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private void writeError(JsonGenerator json, MetadataRequest item, String error)
+      throws IOException {
+    json.writeStartObject();
+    json.writeStringField("id", item != null ? item.getId() : null);
+    json.writeStringField("extension", item != null ? item.getExtension() : null);
+    json.writeBooleanField("found", false);
+    json.writeStringField("error", error);
+    json.writeEndObject();
+  }
+
+  private void writeMetadata(JsonGenerator json, MetadataRequest item, ResourceInfo resourceInfo)
+      throws IOException {
+    json.writeStartObject();
+    json.writeStringField("id", item.getId());
+    json.writeStringField("extension", item.getExtension());
+    json.writeBooleanField("found", resourceInfo != null);
+    if (resourceInfo != null) {
+      json.writeNumberField("size", resourceInfo.length);
+      json.writeStringField("mimeType", resourceInfo.contentType);
+      json.writeStringField("eTag", resourceInfo.eTag);
+      json.writeStringField("lastModified", resourceInfo.lastModifiedHeader);
+    }
+    json.writeEndObject();
+  }
+
+  /** A resource of a batch request. */
+  public static class MetadataRequest {
+
+    private String extension;
+    private String id;
+
+    public String getExtension() {
+      return extension;
+    }
+
+    public void setExtension(String extension) {
+      this.extension = extension;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public void setId(String id) {
+      this.id = id;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package dev.mdz.streaming.euphoria.controller;
+
+import dev.mdz.streaming.euphoria.config.RangeProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Caps open-ended byte ranges per MIME type and compares the bytes promised to clients with the
+ * bytes they actually consumed.
+ *
+ * <p>Media players request <code>bytes=0-</code> or <code>bytes=N-</code> and drop the connection
+ * on the next seek, so most of the remainder of the resource is read and sent for nothing. With a
+ * limit the response only covers a chunk (with the real end in <code>Content-Range</code>) and the
+ * player requests the next chunk when it needs it.
+ *
+ * <p>Metrics: <code>euphoria.ranges.served</code> (bytes announced by <code>Content-Length</code>)
+ * and <code>euphoria.ranges.consumed</code> (bytes written before the response completed or the
+ * client went away), both tagged by the main MIME type.
+ */
+@Component
+class RangePolicy {
+
+  private final Map<String, Counter> consumed = new ConcurrentHashMap<>();
+  private final Map<String, Long> limits = new HashMap<>();
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Counter> served = new ConcurrentHashMap<>();
+
+  RangePolicy(RangeProperties properties, MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    for (Map.Entry<String, DataSize> limit : properties.getOpenEndedLimits().entrySet()) {
+      limits.put(limit.getKey(), limit.getValue().toBytes());
+    }
+  }
+
+  static String getMainType(String contentType) {
+    int slash = contentType.indexOf('/');
+    return slash < 0 ? contentType : contentType.substring(0, slash);
+  }
+
+  /**
+   * Returns the maximum length of open-ended ranges for the given MIME type.
+   *
+   * @param contentType the MIME type of the resource
+   * @return the limit in bytes or -1 if open-ended ranges are not capped
+   */
+  long getOpenEndedLimit(String contentType) {
+    if (limits.isEmpty()) {
+      return -1;
+    }
+    Long limit = limits.get(contentType);
+    if (limit == null) {
+      limit = limits.get(getMainType(contentType) + "/*");
+    }
+    return limit != null && limit > 0 ? limit : -1;
+  }
+
+  /**
+   * Records the transfer of a range.
+   *
+   * @param contentType the MIME type of the resource
+   * @param served the length of the range
+   * @param consumed the number of bytes actually written
+   */
+  void recordTransfer(String contentType, long served, long consumed) {
+    String type = getMainType(contentType);
+    counter(this.served, "euphoria.ranges.served", type).increment(served);
+    counter(this.consumed, "euphoria.ranges.consumed", type).increment(consumed);
+  }
+
+  /** Registers the counter of a main type once, not on every transfer. */
+  private Counter counter(Map<String, Counter> counters, String name, String type) {
+    return counters.computeIfAbsent(
+        type,
+        key -> Counter.builder(name).baseUnit("bytes").tag("type", key).register(meterRegistry));
+  }
+}
@@ -0,0 +1,150 @@
+package dev.mdz.streaming.euphoria.controller;
+
+import dev.mdz.streaming.euphoria.config.MemoryCacheProperties;
+import dev.mdz.streaming.euphoria.controller.StreamingController.ResourceInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory cache of complete responses for small resources.
+ *
+ * <p>For small resources the fixed costs of a request (resolving the resource, building the
+ * headers, opening and closing the stream) outweigh the bytes. A cached response holds the content
+ * together with the precomputed {@link ResourceInfo}, so a hit neither touches the storage nor
+ * builds any header value; ranges are served as slices of the content.
+ *
+ * <p>Cached responses are revalidated after a configurable age: the resource is resolved again and
+ * the response is kept if size and modification time (i.e. the ETag) are unchanged, otherwise it is
+ * dropped and reloaded. The cache is bounded by a memory budget, responses are weighted by their
+ * size and the least recently used ones are evicted first.
+ */
+@Component
+class ResponseCache {
+
+  private final boolean enabled;
+  private final Map<String, CachedResponse> entries = new LinkedHashMap<>(256, 0.75f, true);
+  private final Counter hits;
+  private final long maxFileSize;
+  private final long maxSize;
+  private final Counter misses;
+  private final long revalidateAfterMillis;
+  private long size;
+
+  ResponseCache(MemoryCacheProperties properties, MeterRegistry meterRegistry) {
+    this.enabled = properties.isEnabled();
+    this.maxFileSize = properties.getMaxFileSize().toBytes();
+    this.maxSize = properties.getMaxSize().toBytes();
+    this.revalidateAfterMillis = properties.getRevalidateAfter().toMillis();
+
+    hits = meterRegistry.counter("euphoria.cache.memory.reads", "result", "hit");
+    misses = meterRegistry.counter("euphoria.cache.memory.reads", "result", "miss");
+    Gauge.builder("euphoria.cache.memory.size", this, ResponseCache::getSize)
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("euphoria.cache.memory.entries", this, ResponseCache::getEntryCount)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Returns the cached response for the given key, if it does not need to be revalidated.
+   *
+   * @param key the key of the requested resource (id and extension)
+   * @return the cached response or <code>null</code> if the resource has to be resolved
+   */
+  CachedResponse get(String key) {
+    if (!enabled) {
+      return null;
+    }
+    CachedResponse cached;
+    synchronized (this) {
+      cached = entries.get(key);
+    }
+    if (cached == null || System.currentTimeMillis() - cached.verifiedAt >= revalidateAfterMillis) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return cached;
+  }
+
+  synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  synchronized long getSize() {
+    return size;
+  }
+
+  /** Returns true if a resource of the given size is kept in memory. */
+  boolean isCacheable(long length) {
+    return enabled && length > 0 && length <= maxFileSize && length <= maxSize;
+  }
+
+  /**
+   * Caches the given response, evicting the least recently used responses beyond the memory budget.
+   */
+  void put(String key, CachedResponse response) {
+    synchronized (this) {
+      CachedResponse previous = entries.put(key, response);
+      if (previous != null) {
+        size -= previous.content.length;
+      }
+      size += response.content.length;
+      Iterator<CachedResponse> eldest = entries.values().iterator();
+      while (size > maxSize && eldest.hasNext()) {
+        CachedResponse evicted = eldest.next();
+        if (evicted == response) {
+          continue;
+        }
+        eldest.remove();
+        size -= evicted.content.length;
+      }
+    }
+  }
+
+  /**
+   * Revalidates the cached response for the given key against the freshly resolved resource.
+   *
+   * @param key the key of the requested resource (id and extension)
+   * @param resourceInfo the metadata of the resolved resource
+   * @return the cached response if it is still valid, otherwise <code>null</code> (an outdated
+   *     response is removed)
+   */
+  CachedResponse revalidate(String key, ResourceInfo resourceInfo) {
+    if (!enabled) {
+      return null;
+    }
+    synchronized (this) {
+      CachedResponse cached = entries.get(key);
+      if (cached == null) {
+        return null;
+      }
+      if (cached.resourceInfo.eTag.equals(resourceInfo.eTag)) {
+        cached.verifiedAt = System.currentTimeMillis();
+        return cached;
+      }
+      entries.remove(key);
+      size -= cached.content.length;
+      return null;
+    }
+  }
+
+  /** The content of a small resource together with its precomputed metadata and headers. */
+  static final class CachedResponse {
+
+    final byte[] content;
+    final ResourceInfo resourceInfo;
+    volatile long verifiedAt;
+
+    CachedResponse(ResourceInfo resourceInfo, byte[] content) {
+      this.resourceInfo = resourceInfo;
+      this.content = content;
+      this.verifiedAt = System.currentTimeMillis();
+    }
+  }
+}
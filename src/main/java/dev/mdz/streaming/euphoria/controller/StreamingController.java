@@ -3,11 +3,20 @@ package dev.mdz.streaming.euphoria.controller;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
-import de.digitalcollections.commons.file.business.api.FileResourceService;
 import de.digitalcollections.model.exception.ResourceIOException;
 import de.digitalcollections.model.exception.ResourceNotFoundException;
 import de.digitalcollections.model.file.MimeType;
-import de.digitalcollections.model.identifiable.resource.FileResource;
+import dev.mdz.streaming.euphoria.controller.ResponseCache.CachedResponse;
+import dev.mdz.streaming.euphoria.hash.ContentHashService;
+import dev.mdz.streaming.euphoria.hotspots.HotspotTracker;
+import dev.mdz.streaming.euphoria.live.LiveStreamService;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import dev.mdz.streaming.euphoria.resource.StreamingResourceService;
+import dev.mdz.streaming.euphoria.tracing.RequestTrace;
+import dev.mdz.streaming.euphoria.tracing.RequestTrace.Phase;
+import dev.mdz.streaming.euphoria.tracing.RequestTracer;
+import dev.mdz.streaming.euphoria.workload.WorkloadClass;
+import dev.mdz.streaming.euphoria.workload.WorkloadScheduler;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.BufferedInputStream;
 import java.io.Closeable;
@@ -17,15 +26,15 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
-import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPOutputStream;
@@ -33,6 +42,7 @@ import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -69,6 +79,9 @@ public class StreamingController {
       "%s;filename=\"%2$s\"; filename*=UTF-8''%2$s";
   private static final Long DEFAULT_EXPIRE_TIME_IN_SECONDS = TimeUnit.DAYS.toSeconds(30);
   private static final int DEFAULT_STREAM_BUFFER_SIZE = 10240; // 10 kB;
+  private static final DateTimeFormatter HTTP_DATE_FORMAT =
+      DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US)
+          .withZone(ZoneOffset.UTC);
   private static final String ERROR_UNSUPPORTED_ENCODING =
       "UTF-8 is apparently not supported on this platform.";
   private static final Logger LOGGER = LoggerFactory.getLogger(StreamingController.class);
@@ -77,7 +90,15 @@ public class StreamingController {
   private static final Pattern RANGE_PATTERN =
       Pattern.compile("^bytes=[0-9]*-[0-9]*(,[0-9]*-[0-9]*)*$");
 
-  @Autowired FileResourceService fileResourceService;
+  @Autowired ClientAborts clientAborts;
+  @Autowired ContentHashService contentHashService;
+  @Autowired HotspotTracker hotspotTracker;
+  @Autowired LiveStreamService liveStreamService;
+  @Autowired RangePolicy rangePolicy;
+  @Autowired RequestTracer requestTracer;
+  @Autowired ResponseCache responseCache;
+  @Autowired StreamingResourceService streamingResourceService;
+  @Autowired WorkloadScheduler workloadScheduler;
 
   /**
    * Returns true if the given accept header accepts the given value.
@@ -124,6 +145,11 @@ public class StreamingController {
         || Arrays.binarySearch(matchValues, "*") > -1;
   }
 
+  /** Returns true if the given match header matches the ETag of either representation. */
+  private static boolean matches(String matchHeader, ResourceInfo resourceInfo) {
+    return matches(matchHeader, resourceInfo.eTag) || matches(matchHeader, resourceInfo.gzipETag);
+  }
+
   /** Returns true if the given modified header is older than the given last modified value. */
   private static boolean modified(long modifiedHeader, long lastModified) {
     return (modifiedHeader + ONE_SECOND_IN_MILLIS
@@ -147,50 +173,33 @@ public class StreamingController {
   /**
    * Copy the given byte range of the given input to the given output.
    *
-   * @param input The input to copy the given range to the given output for.
+   * @param input The input to copy the given range to the given output for, already positioned at
+   *     the start of the byte range.
    * @param output The output to copy the given range from the given input for.
    * @param start Start of the byte range.
    * @param inputSize the length of the entire resource.
    * @param length Length of the byte range.
    * @throws IOException If something fails at I/O level.
    */
-  @SuppressFBWarnings(
-      value = "SR_NOT_CHECKED",
-      justification =
-          "Return check of input.skip() is done later in while-loop and used as terminating loop")
   private void copy(InputStream input, OutputStream output, long inputSize, long start, long length)
       throws IOException {
+    LOGGER.debug(
+        "*** Response: writing {} (from byte {} to byte {} = {} kB of total {} kB)",
+        inputSize == length ? "FULL RANGE" : "partial range",
+        start,
+        (start + length - 1),
+        length / 1024,
+        inputSize / 1024);
+
+    // Never read beyond the range: once the client is gone the next write fails and no further
+    // byte is requested from the storage.
     byte[] buffer = new byte[DEFAULT_STREAM_BUFFER_SIZE];
+    long toRead = length;
     int read;
-
-    if (inputSize == length) {
-      LOGGER.debug(
-          "*** Response: writing FULL RANGE (from byte {} to byte {} = {} kB of total {} kB)",
-          start,
-          (start + length - 1),
-          length / 1024,
-          inputSize / 1024);
-      stream(input, output);
-    } else {
-      LOGGER.debug(
-          "*** Response: writing partial range (from byte {} to byte {} = {} kB of total {} kB)",
-          start,
-          (start + length - 1),
-          length / 1024,
-          inputSize / 1024);
-      input.skip(start);
-      long toRead = length;
-
-      while ((read = input.read(buffer)) > 0) {
-        if ((toRead -= read) > 0) {
-          output.write(buffer, 0, read);
-          //          output.flush();
-        } else {
-          output.write(buffer, 0, (int) toRead + read);
-          //          output.flush();
-          break;
-        }
-      }
+    while (toRead > 0
+        && (read = input.read(buffer, 0, (int) Math.min(buffer.length, toRead))) > 0) {
+      output.write(buffer, 0, read);
+      toRead -= read;
     }
   }
 
@@ -207,7 +216,7 @@ public class StreamingController {
    * @throws UnsupportedOperationException When this platform does not support UTF-8.
    * @since 2.4
    */
-  private String encodeURI(String string) {
+  private static String encodeURI(String string) {
     if (string == null) {
       return null;
     }
@@ -230,7 +239,7 @@ public class StreamingController {
    * @throws UnsupportedOperationException When this platform does not support UTF-8.
    * @since 1.4
    */
-  private String encodeURL(String string) {
+  private static String encodeURL(String string) {
     if (string == null) {
       return null;
     }
@@ -250,7 +259,12 @@ public class StreamingController {
       HttpServletResponse response)
       throws ResourceNotFoundException, IOException {
     LOGGER.info("HEAD request!");
-    respond(id, extension, request, response, true);
+    RequestTrace trace = requestTracer.start(id, extension);
+    try {
+      respond(id, extension, request, response, true, trace);
+    } finally {
+      requestTracer.finish(trace, response.getStatus());
+    }
   }
 
   /**
@@ -288,7 +302,9 @@ public class StreamingController {
 
     String ifRange = request.getHeader("If-Range");
 
-    if (ifRange != null && !ifRange.equals(resourceInfo.eTag)) {
+    if (ifRange != null
+        && !ifRange.equals(resourceInfo.eTag)
+        && !ifRange.equals(resourceInfo.gzipETag)) {
       try {
         long ifRangeTime = request.getDateHeader("If-Range");
         if (ifRangeTime != -1 && modified(ifRangeTime, resourceInfo.lastModified)) {
@@ -299,8 +315,9 @@ public class StreamingController {
       }
     }
 
+    long openEndedLimit = rangePolicy.getOpenEndedLimit(resourceInfo.contentType);
     for (String rangeHeaderPart : rangeHeader.split("=")[1].split(",")) {
-      Range range = parseRange(rangeHeaderPart, resourceInfo.length);
+      Range range = parseRange(rangeHeaderPart, resourceInfo.length, openEndedLimit);
       if (range == null) {
         return null; // Logic error.
       }
@@ -310,9 +327,9 @@ public class StreamingController {
     return ranges;
   }
 
-  private FileResource getResource(String id, String extension)
+  private StreamingResource getResource(String id, String extension)
       throws ResourceIOException, ResourceNotFoundException {
-    FileResource resource = fileResourceService.find(id, extension);
+    StreamingResource resource = streamingResourceService.find(id, extension);
     return resource;
   }
 
@@ -324,7 +341,15 @@ public class StreamingController {
       HttpServletResponse response)
       throws ResourceNotFoundException, IOException {
     LOGGER.info("Stream for resource {}.{} requested.", id, extension);
-    respond(id, extension, request, response, false);
+    RequestTrace trace = requestTracer.start(id, extension);
+    try {
+      respond(id, extension, request, response, false, trace);
+    } finally {
+      // async responses finish their trace themselves
+      if (!request.isAsyncStarted()) {
+        requestTracer.finish(trace, response.getStatus());
+      }
+    }
   }
 
   /**
@@ -371,7 +396,7 @@ public class StreamingController {
     String noMatch = request.getHeader("If-None-Match");
     long modified = request.getDateHeader("If-Modified-Since");
     return (noMatch != null)
-        ? matches(noMatch, resourceInfo.eTag)
+        ? matches(noMatch, resourceInfo)
         : (modified != -1 && !modified(modified, resourceInfo.lastModified));
   }
 
@@ -387,8 +412,10 @@ public class StreamingController {
    *
    * <p>A byte-range-spec is invalid if the last-byte-pos value is present and less than the
    * first-byte-pos.
+   *
+   * <p>If an open-ended limit is given, a range without last-byte-pos is capped to that length.
    */
-  private Range parseRange(String range, long length) {
+  private Range parseRange(String range, long length, long openEndedLimit) {
     long start = sublong(range, 0, range.indexOf('-'));
     long end = sublong(range, range.indexOf('-') + 1, range.length());
 
@@ -402,6 +429,13 @@ public class StreamingController {
        */
       start = length - end;
       end = length - 1;
+    } else if (end == -1 && openEndedLimit > 0) {
+      /*
+      The server may answer with a shorter range than requested, the real end is announced in
+      Content-Range and the client requests the remainder as needed.
+      Example with a limit of 1000 bytes:  bytes=9000-  is answered with bytes 9000-9999
+       */
+      end = Math.min(start + openEndedLimit - 1, length - 1);
     } else if (end == -1 || end > length - 1) {
       /*
       A client can limit the number of bytes requested without knowing the size of the selected representation.
@@ -435,7 +469,7 @@ public class StreamingController {
     String match = request.getHeader("If-Match");
     long unmodified = request.getDateHeader("If-Unmodified-Since");
     return (match != null)
-        ? !matches(match, resourceInfo.eTag)
+        ? !matches(match, resourceInfo)
         : (unmodified != -1 && modified(unmodified, resourceInfo.lastModified));
   }
 
@@ -447,6 +481,7 @@ public class StreamingController {
    * @param request The request to be responded to.
    * @param response The response to the request.
    * @param head "true" if response body should be written (GET) or "false" if not (HEAD).
+   * @param trace The trace recording the durations of the request phases.
    * @throws IOException If something fails at I/O level.
    */
   private void respond(
@@ -454,36 +489,70 @@ public class StreamingController {
       String extension,
       HttpServletRequest request,
       HttpServletResponse response,
-      boolean head)
+      boolean head,
+      RequestTrace trace)
       throws ResourceNotFoundException, IOException {
     logRequestHeaders(request);
 
     response.reset();
 
-    // try to get access to resource
-    FileResource resource;
-    try {
-      resource = getResource(id, extension);
-    } catch (ResourceIOException ex) {
-      LOGGER.warn(
-          "*** Response {}: Error referencing streaming resource with id {} and extension {}",
-          HttpServletResponse.SC_NOT_FOUND,
-          id,
-          extension);
-      response.sendError(HttpServletResponse.SC_NOT_FOUND);
-      return;
+    // small resources may be served from memory without resolving them at all
+    String cacheKey = id + "." + extension;
+    CachedResponse cached = responseCache.get(cacheKey);
+    StreamingResource resource = null;
+    ResourceInfo resourceInfo;
+    if (cached != null) {
+      resourceInfo = cached.resourceInfo;
+      trace.mark(Phase.RESOLVE);
+    } else {
+      // try to get access to resource
+      try {
+        resource = getResource(id, extension);
+      } catch (ResourceIOException ex) {
+        LOGGER.warn(
+            "*** Response {}: Error referencing streaming resource with id {} and extension {}",
+            HttpServletResponse.SC_NOT_FOUND,
+            id,
+            extension);
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        return;
+      }
+      trace.mark(Phase.RESOLVE);
+
+      // files still being recorded are followed instead of served with a fixed length
+      Path livePath = liveStreamService.getLivePath(resource);
+      if (livePath != null) {
+        respondLive(resource, livePath, request, response, head, trace);
+        return;
+      }
+
+      // get resource metadata
+      resourceInfo = new ResourceInfo(id, resource, contentHashService.getHash(resource));
+      trace.mark(Phase.METADATA);
+      if (resourceInfo.length <= 0) {
+        LOGGER.warn(
+            "*** Response {}: Error streaming resource with id {} and extension {}: not found/no size",
+            HttpServletResponse.SC_NOT_FOUND,
+            id,
+            extension);
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        return;
+      }
+
+      cached = responseCache.revalidate(cacheKey, resourceInfo);
+      if (cached != null) {
+        resourceInfo = cached.resourceInfo;
+      }
     }
+    hotspotTracker.recordResource(cacheKey);
 
-    // get resource metadata
-    ResourceInfo resourceInfo = new ResourceInfo(id, resource);
-    if (resourceInfo.length <= 0) {
-      LOGGER.warn(
-          "*** Response {}: Error streaming resource with id {} and extension {}: not found/no size",
-          HttpServletResponse.SC_NOT_FOUND,
-          id,
-          extension);
-      response.sendError(HttpServletResponse.SC_NOT_FOUND);
-      return;
+    boolean acceptsGzip = false;
+    // If content type is text, then determine whether GZIP content encoding is supported by
+    // the browser. The encoding decides about the ETag, so it is determined in advance.
+    if (resourceInfo.contentType.startsWith("text")) {
+      String acceptEncoding = request.getHeader("Accept-Encoding");
+      acceptsGzip = acceptEncoding != null && accepts(acceptEncoding, "gzip");
+      response.setHeader("Vary", "Accept-Encoding");
     }
 
     if (preconditionFailed(request, resourceInfo)) {
@@ -496,7 +565,7 @@ public class StreamingController {
       return;
     }
 
-    setCacheHeaders(response, resourceInfo);
+    setCacheHeaders(response, resourceInfo, acceptsGzip);
 
     if (notModified(request, resourceInfo)) {
       LOGGER.debug(
@@ -528,12 +597,8 @@ public class StreamingController {
     }
 
     String contentType = setContentHeaders(request, response, resourceInfo, ranges);
-    boolean acceptsGzip = false;
-    // If content type is text, then determine whether GZIP content encoding is supported by
-    // the browser and expand content type with the one and right character encoding.
+    // If content type is text, then expand content type with the one and right character encoding.
     if (contentType.startsWith("text")) {
-      String acceptEncoding = request.getHeader("Accept-Encoding");
-      acceptsGzip = acceptEncoding != null && accepts(acceptEncoding, "gzip");
       contentType += ";charset=UTF-8";
     }
 
@@ -541,8 +606,136 @@ public class StreamingController {
       return;
     }
 
-    writeContent(response, resource, resourceInfo, ranges, contentType, acceptsGzip);
-    LOGGER.debug("*** RESPONSE FINISHED ***");
+    for (Range range : ranges) {
+      hotspotTracker.recordRange(cacheKey, range.start);
+    }
+
+    byte[] content = null;
+    if (cached != null) {
+      content = cached.content;
+    } else if (responseCache.isCacheable(resourceInfo.length)) {
+      content = loadContent(cacheKey, resource, resourceInfo);
+    }
+
+    trace.mark(Phase.HEADERS);
+
+    scheduleContent(
+        request,
+        response,
+        resource,
+        content,
+        resourceInfo,
+        ranges,
+        contentType,
+        acceptsGzip,
+        trace);
+  }
+
+  /**
+   * Write the content, if workload scheduling is enabled on the executor of the workload class of
+   * the response (determined by MIME type and length). The container thread is released then.
+   * Content from the memory cache is written right away, it doesn't wait for storage and must not
+   * be rejected because the executor is busy.
+   */
+  private void scheduleContent(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      StreamingResource resource,
+      byte[] content,
+      ResourceInfo resourceInfo,
+      List<Range> ranges,
+      String contentType,
+      boolean acceptsGzip,
+      RequestTrace trace)
+      throws ResourceNotFoundException, IOException {
+    if (!workloadScheduler.isEnabled() || content != null) {
+      writeContent(
+          response, resource, content, resourceInfo, ranges, contentType, acceptsGzip, trace);
+      LOGGER.debug("*** RESPONSE FINISHED ***");
+      return;
+    }
+
+    long length = 0;
+    for (Range range : ranges) {
+      length += range.length;
+    }
+    WorkloadClass workloadClass = workloadScheduler.classify(resourceInfo.contentType, length);
+    boolean scheduled =
+        workloadScheduler.execute(
+            workloadClass,
+            request,
+            response,
+            scheduledResponse -> {
+              try {
+                // only content that is not in memory is written on the executor
+                writeContent(
+                    scheduledResponse,
+                    resource,
+                    null,
+                    resourceInfo,
+                    ranges,
+                    contentType,
+                    acceptsGzip,
+                    trace);
+                LOGGER.debug("*** RESPONSE FINISHED ***");
+              } finally {
+                requestTracer.finish(trace, scheduledResponse.getStatus());
+              }
+            });
+    if (!scheduled) {
+      LOGGER.warn(
+          "*** Response {}: Too many {} responses, rejecting request for {}",
+          HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+          workloadClass.getName(),
+          resourceInfo.fileName);
+      response.reset();
+      response.setHeader("Retry-After", "1");
+      response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+  }
+
+  /**
+   * Create response for a file that is still being recorded: the content is streamed with chunked
+   * encoding and followed until the recording is complete. Ranges and conditional requests are
+   * ignored, the content is not cacheable.
+   */
+  private void respondLive(
+      StreamingResource resource,
+      Path livePath,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      boolean head,
+      RequestTrace trace)
+      throws IOException {
+    String contentType =
+        MimeType.fromExtension(FilenameUtils.getExtension(resource.getFilename())).getTypeName();
+    setNoCacheHeaders(response);
+    response.setContentType(contentType != null ? contentType : "application/octet-stream");
+    response.setHeader("Accept-Ranges", "none");
+    LOGGER.debug("*** Response {}: following live file {}", HttpServletResponse.SC_OK, livePath);
+    if (head) {
+      return;
+    }
+    requestTracer.finish(trace, HttpServletResponse.SC_OK);
+    liveStreamService.follow(request, response, livePath);
+  }
+
+  /**
+   * Read the complete (small) resource into memory and cache it.
+   *
+   * @return the content or <code>null</code> if the resource changed while reading
+   */
+  private byte[] loadContent(String cacheKey, StreamingResource resource, ResourceInfo resourceInfo)
+      throws ResourceNotFoundException, IOException {
+    byte[] content;
+    try (InputStream input = resource.getInputStream(0, resourceInfo.length)) {
+      content = input.readNBytes((int) resourceInfo.length);
+    }
+    if (content.length != resourceInfo.length) {
+      return null;
+    }
+    responseCache.put(cacheKey, new CachedResponse(resourceInfo, content));
+    return content;
   }
 
   /**
@@ -571,10 +764,12 @@ public class StreamingController {
   }
 
   /** Caching, see https://tools.ietf.org/html/rfc7232#section-3.2 */
-  private void setCacheHeaders(HttpServletResponse response, ResourceInfo resourceInfo) {
+  private void setCacheHeaders(
+      HttpServletResponse response, ResourceInfo resourceInfo, boolean gzipped) {
     setCacheHeaders(response, DEFAULT_EXPIRE_TIME_IN_SECONDS);
-    response.setHeader("ETag", resourceInfo.eTag);
-    response.setDateHeader("Last-Modified", resourceInfo.lastModified);
+    // the gzip encoded content is another representation, it must not share a strong ETag
+    response.setHeader("ETag", gzipped ? resourceInfo.gzipETag : resourceInfo.eTag);
+    response.setHeader("Last-Modified", resourceInfo.lastModifiedHeader);
   }
 
   private String setContentHeaders(
@@ -583,16 +778,11 @@ public class StreamingController {
       ResourceInfo resourceInfo,
       List<Range> ranges) {
     String contentType = resourceInfo.contentType;
-    // If content type is unknown, then set the default value.
-    // For all content types, see: http://www.w3schools.com/media/media_mimeref.asp
-    // To add new content types, add new mime-mapping entry in web.xml.
-    if (contentType == null) {
-      contentType = "application/octet-stream";
-    }
-    String disposition = isAttachment(request, contentType) ? "attachment" : "inline";
-    String filename = encodeURI(resourceInfo.fileName);
     response.setHeader(
-        "Content-Disposition", String.format(CONTENT_DISPOSITION_HEADER, disposition, filename));
+        "Content-Disposition",
+        isAttachment(request, contentType)
+            ? resourceInfo.attachmentDisposition
+            : resourceInfo.inlineDisposition);
     response.setHeader("Accept-Ranges", "bytes");
 
     if (ranges.size() == 1) {
@@ -630,42 +820,70 @@ public class StreamingController {
   }
 
   /**
-   * Stream the given input to the given output via NIO {@link Channels} and a directly allocated
-   * NIO {@link ByteBuffer}. Both the input and output streams will implicitly be closed after
-   * streaming, regardless of whether an exception is been thrown or not.
-   *
-   * @param input The input stream.
-   * @param output The output stream.
-   * @return The length of the written bytes.
-   * @throws IOException When an I/O error occurs.
+   * Open the given range of the resource. Every range gets its own stream, so resources supporting
+   * positional reads don't have to read (and skip) any bytes in front of the range.
    */
-  private long stream(InputStream input, OutputStream output) throws IOException {
-    try (ReadableByteChannel inputChannel = Channels.newChannel(input);
-        WritableByteChannel outputChannel = Channels.newChannel(output)) {
-      ByteBuffer buffer = ByteBuffer.allocateDirect(DEFAULT_STREAM_BUFFER_SIZE);
-      long size = 0;
-
-      while (inputChannel.read(buffer) != -1) {
-        buffer.flip();
-        size += outputChannel.write(buffer);
-        buffer.clear();
-      }
+  private InputStream openStream(StreamingResource resource, Range range)
+      throws ResourceNotFoundException, IOException {
+    return new BufferedInputStream(
+        resource.getInputStream(range.start, range.length), DEFAULT_STREAM_BUFFER_SIZE);
+  }
 
-      return size;
+  /**
+   * Write the given range either from the cached content or from a stream of the resource opened at
+   * the start of the range.
+   */
+  private void writeRange(
+      OutputStream output,
+      StreamingResource resource,
+      byte[] content,
+      ResourceInfo resourceInfo,
+      Range range,
+      RequestTrace trace)
+      throws ResourceNotFoundException, IOException {
+    CountingOutputStream countingOutput = new CountingOutputStream(output);
+    InputStream input = null;
+    try {
+      if (content != null) {
+        countingOutput.write(content, (int) range.start, (int) range.length);
+        return;
+      }
+      input = openStream(resource, range);
+      trace.mark(Phase.OPEN);
+      if (trace.isEnabled()) {
+        // fill the buffer in advance to tell the first read apart from the transfer
+        input.mark(1);
+        input.read();
+        input.reset();
+        trace.mark(Phase.FIRST_READ);
+      }
+      copy(input, countingOutput, resourceInfo.length, range.start, range.length);
+    } catch (IOException e) {
+      if (ClientAborts.isClientAbort(e)) {
+        clientAborts.record(resourceInfo.contentType, range.length, countingOutput.getByteCount());
+      }
+      throw e;
+    } finally {
+      // release the storage handle (and its read-ahead) right away, also if the client is gone
+      close(input);
+      // every range is transferred on its own, don't attribute it to the next range's opening
+      trace.mark(Phase.TRANSFER);
+      rangePolicy.recordTransfer(
+          resourceInfo.contentType, range.length, countingOutput.getByteCount());
     }
   }
 
   private void writeContent(
       HttpServletResponse response,
-      FileResource resource,
+      StreamingResource resource,
+      byte[] content,
       ResourceInfo resourceInfo,
       List<Range> ranges,
       String contentType,
-      boolean acceptsGzip)
+      boolean acceptsGzip,
+      RequestTrace trace)
       throws ResourceNotFoundException, IOException {
     OutputStream output = null;
-    InputStream datastream = null;
-    BufferedInputStream input = null;
     try {
       output = response.getOutputStream();
       if (acceptsGzip) {
@@ -673,13 +891,9 @@ public class StreamingController {
         response.setHeader("Content-Encoding", "gzip");
         output = new GZIPOutputStream(output, DEFAULT_STREAM_BUFFER_SIZE);
       }
-      datastream = fileResourceService.getInputStream(resource);
-      // Open streams.
-      input = new BufferedInputStream(datastream);
 
       if (ranges.size() == 1) {
-        Range range = ranges.get(0);
-        copy(input, output, resourceInfo.length, range.start, range.length);
+        writeRange(output, resource, content, resourceInfo, ranges.get(0), trace);
       } else {
         // Cast back to ServletOutputStream to get the easy println methods.
         ServletOutputStream sos = (ServletOutputStream) output;
@@ -690,45 +904,84 @@ public class StreamingController {
           sos.println("Content-Type: " + contentType);
           sos.println(
               "Content-Range: bytes " + range.start + "-" + range.end + "/" + resourceInfo.length);
-          copy(input, sos, resourceInfo.length, range.start, range.length);
+          writeRange(sos, resource, content, resourceInfo, range, trace);
         }
 
         sos.println();
         sos.println("--" + MULTIPART_BOUNDARY + "--");
       }
+    } catch (IOException e) {
+      if (!ClientAborts.isClientAbort(e)) {
+        throw e;
+      }
+      // e.g. a player seeking: nothing to respond to anymore, but also nothing went wrong
+      LOGGER.debug("*** Client aborted response for {}: {}", resourceInfo.fileName, e.getMessage());
     } finally {
-      // Gently close streams.
+      // Gently close stream.
       close(output);
-      close(input);
-      if (datastream != null) {
-        close(datastream);
-      }
+      trace.mark(Phase.TRANSFER);
     }
   }
 
   // Inner classes ------------------------------------------------------------------------------
-  private static class ResourceInfo {
+  static class ResourceInfo {
+
+    final String attachmentDisposition;
+    final String contentType;
+    final String eTag;
+    final String fileExtension;
+    final String fileName;
 
-    private final String contentType;
-    private final String eTag;
-    private final String fileExtension;
-    private final String fileName;
-    private final long lastModified;
-    private final long length;
+    /** ETag of the gzip encoded representation. */
+    final String gzipETag;
+
+    final String inlineDisposition;
+
+    /** Last modification time in epoch millis, truncated to seconds as in the header. */
+    final long lastModified;
+
+    final String lastModifiedHeader;
+    final long length;
 
     @SuppressFBWarnings(
         value = "CT_CONSTRUCTOR_THROW",
         justification = "The exception is only thrown on Windows systems")
-    private ResourceInfo(String id, FileResource resource) {
+    ResourceInfo(String id, StreamingResource resource, String contentHash) {
       length = resource.getSizeInBytes();
       fileName = resource.getFilename();
-      lastModified = resource.getLastModified().toEpochSecond(ZoneOffset.UTC);
+      long lastModifiedSeconds = resource.getLastModified().toEpochSecond(ZoneOffset.UTC);
+      lastModified = SECONDS.toMillis(lastModifiedSeconds);
       fileExtension = FilenameUtils.getExtension(fileName);
-      contentType = MimeType.fromExtension(fileExtension).getTypeName();
-      // unique identifier for resource (with timestamp and size):
-      eTag = id + "." + fileExtension + "_" + length + "_" + lastModified;
-
-      LOGGER.info("eTag for requested resource = {}", eTag);
+      // If content type is unknown, then set the default value.
+      // For all content types, see: http://www.w3schools.com/media/media_mimeref.asp
+      String typeName = MimeType.fromExtension(fileExtension).getTypeName();
+      contentType = typeName != null ? typeName : "application/octet-stream";
+      if (contentHash != null) {
+        // strong validator, independent of location and timestamp
+        eTag = "\"" + contentHash + "\"";
+      } else {
+        // unique identifier for resource (with timestamp, size and fingerprint of composed
+        // content):
+        String fingerprint = resource.getFingerprint();
+        eTag =
+            id
+                + "."
+                + fileExtension
+                + "_"
+                + length
+                + "_"
+                + lastModifiedSeconds
+                + (fingerprint != null ? "_" + fingerprint : "");
+      }
+      gzipETag =
+          eTag.endsWith("\"") ? eTag.substring(0, eTag.length() - 1) + "-gz\"" : eTag + "-gz";
+      lastModifiedHeader = HTTP_DATE_FORMAT.format(Instant.ofEpochMilli(lastModified));
+      String encodedFileName = encodeURI(fileName);
+      attachmentDisposition =
+          String.format(CONTENT_DISPOSITION_HEADER, "attachment", encodedFileName);
+      inlineDisposition = String.format(CONTENT_DISPOSITION_HEADER, "inline", encodedFileName);
+
+      LOGGER.debug("eTag for requested resource = {}", eTag);
     }
   }
 
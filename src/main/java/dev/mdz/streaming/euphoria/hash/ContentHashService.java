@@ -0,0 +1,254 @@
+package dev.mdz.streaming.euphoria.hash;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import dev.mdz.streaming.euphoria.config.ContentHashProperties;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * SHA-256 hashes of resource contents, used as strong ETags.
+ *
+ * <p>Hashes are computed in the background: the first requests of a resource get no hash (and thus
+ * the default ETag), later requests get the hash once it is known. Hashes are keyed by location,
+ * size and modification time of the resource and persisted to a directory, one small file per
+ * resource version, so they are computed only once per version and survive restarts. As the hash
+ * only depends on the content, a renamed or copied resource gets the same ETag again.
+ */
+@Service
+public class ContentHashService {
+
+  private static final String HASH_SUFFIX = ".sha256";
+  private static final Logger LOGGER = LoggerFactory.getLogger(ContentHashService.class);
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final Path directory;
+  private final boolean enabled;
+  private final ThreadPoolExecutor executor;
+  private final Map<String, String> hashes;
+  private final Counter hashedBytes;
+  private final Counter hits;
+  private final long maxFileSize;
+  private final Counter misses;
+  private final Set<String> pending = new HashSet<>();
+
+  public ContentHashService(ContentHashProperties properties, MeterRegistry meterRegistry) {
+    this.directory = properties.getDirectory();
+    this.enabled = properties.isEnabled();
+    this.maxFileSize = properties.getMaxFileSize().toBytes();
+    int maxCachedHashes = properties.getMaxCachedHashes();
+    this.hashes =
+        new LinkedHashMap<>(1024, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > maxCachedHashes;
+          }
+        };
+
+    hits = meterRegistry.counter("euphoria.hash.lookups", "result", "hit");
+    misses = meterRegistry.counter("euphoria.hash.lookups", "result", "miss");
+    hashedBytes =
+        Counter.builder("euphoria.hash.read")
+            .baseUnit("bytes")
+            .description("Bytes read to compute content hashes")
+            .register(meterRegistry);
+
+    executor =
+        enabled
+            ? new ThreadPoolExecutor(
+                properties.getThreads(),
+                properties.getThreads(),
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory("content-hash-"))
+            : null;
+  }
+
+  private static MessageDigest sha(String algorithm) {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(
+          algorithm + " is apparently not supported on this platform.", e);
+    }
+  }
+
+  /**
+   * @param resource the resource
+   * @return the key identifying the given version of the resource
+   */
+  static String getResourceKey(StreamingResource resource) {
+    String key =
+        resource.getLocation()
+            + "|"
+            + resource.getSizeInBytes()
+            + "|"
+            + resource.getLastModified().toInstant(ZoneOffset.UTC).toEpochMilli();
+    String fingerprint = resource.getFingerprint();
+    return HexFormat.of()
+        .formatHex(
+            sha("SHA-1")
+                .digest((fingerprint != null ? key + "|" + fingerprint : key).getBytes(UTF_8)));
+  }
+
+  private Path getHashDirectory(String resourceKey) {
+    return directory.resolve(resourceKey.substring(0, 2));
+  }
+
+  private Path getHashPath(String resourceKey) {
+    return getHashDirectory(resourceKey).resolve(resourceKey + HASH_SUFFIX);
+  }
+
+  /**
+   * Look up the content hash of the given resource. If it is not known yet, it is computed in the
+   * background.
+   *
+   * @param resource the resource
+   * @return the hex encoded SHA-256 hash of the content, or null if it is not known (yet)
+   */
+  public String getHash(StreamingResource resource) {
+    long size = resource.getSizeInBytes();
+    if (!enabled || size <= 0 || size > maxFileSize) {
+      return null;
+    }
+    String resourceKey = getResourceKey(resource);
+    String hash;
+    synchronized (this) {
+      hash = hashes.get(resourceKey);
+      // the disk is probed by the first request only, until the hash is computed
+      if (hash == null && !pending.add(resourceKey)) {
+        misses.increment();
+        return null;
+      }
+    }
+    if (hash == null) {
+      hash = load(resourceKey);
+      if (hash != null) {
+        synchronized (this) {
+          pending.remove(resourceKey);
+        }
+      }
+    }
+    if (hash != null) {
+      hits.increment();
+      return hash;
+    }
+    misses.increment();
+    schedule(resourceKey, resource);
+    return null;
+  }
+
+  /**
+   * @return true if content hashes are used as ETags
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  private String load(String resourceKey) {
+    try {
+      String hash = Files.readString(getHashPath(resourceKey), UTF_8).trim();
+      synchronized (this) {
+        hashes.put(resourceKey, hash);
+      }
+      return hash;
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      LOGGER.warn("Can not read content hash {}: {}", resourceKey, e.getMessage());
+      return null;
+    }
+  }
+
+  /** Computes the hash of a resource marked as pending. */
+  private void schedule(String resourceKey, StreamingResource resource) {
+    try {
+      executor.execute(() -> compute(resourceKey, resource));
+    } catch (RejectedExecutionException e) {
+      LOGGER.debug("Content hash queue is full, skipping {}", resource.getLocation());
+      synchronized (this) {
+        pending.remove(resourceKey);
+      }
+    }
+  }
+
+  private void compute(String resourceKey, StreamingResource resource) {
+    Path file = getHashPath(resourceKey);
+    Path temp = getHashDirectory(resourceKey).resolve(resourceKey + TEMP_SUFFIX);
+    try {
+      MessageDigest digest = sha("SHA-256");
+      long size = resource.getSizeInBytes();
+      long read = 0;
+      try (InputStream input = resource.getInputStream(0, size)) {
+        byte[] buffer = new byte[64 * 1024];
+        int count;
+        while (read < size
+            && (count = input.read(buffer, 0, (int) Math.min(buffer.length, size - read))) > 0) {
+          digest.update(buffer, 0, count);
+          read += count;
+        }
+      }
+      hashedBytes.increment(read);
+      if (read != size) {
+        throw new IOException("Expected " + size + " bytes but got " + read);
+      }
+      String hash = HexFormat.of().formatHex(digest.digest());
+
+      Files.createDirectories(getHashDirectory(resourceKey));
+      Files.writeString(temp, hash, UTF_8);
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+      synchronized (this) {
+        hashes.put(resourceKey, hash);
+      }
+    } catch (Exception e) {
+      LOGGER.warn("Can not compute content hash of {}: {}", resource.getLocation(), e.getMessage());
+      try {
+        Files.deleteIfExists(temp);
+      } catch (IOException ignore) {
+        // nothing left to clean up
+      }
+    } finally {
+      synchronized (this) {
+        pending.remove(resourceKey);
+      }
+    }
+  }
+
+  /** Stop computing hashes, resources being hashed right now are dropped. */
+  @PreDestroy
+  public void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package dev.mdz.streaming.euphoria.hotspots;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate counts of an unbounded number of keys in a fixed number of counters.
+ *
+ * <p>Each key increments one counter per row, its count is the minimum of these counters: it is
+ * never underestimated, and overestimated only if all of its counters are shared with other
+ * frequent keys. Counters are updated atomically, no locks are taken.
+ */
+final class CountMinSketch {
+
+  private final AtomicLongArray counters;
+  private final int depth;
+  private final int mask;
+  private final int width;
+
+  CountMinSketch(int depth, int width) {
+    this.depth = Math.max(1, depth);
+    this.width = Integer.highestOneBit(Math.max(2, width) * 2 - 1);
+    this.mask = this.width - 1;
+    this.counters = new AtomicLongArray(this.depth * this.width);
+  }
+
+  /** Finalizer of MurmurHash3, spreads the bits of the poor string hash codes. */
+  private static int mix(int hash) {
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+
+  /**
+   * Count an occurrence of the given key.
+   *
+   * @param key the key
+   * @return the estimated count of the key, incl. this occurrence
+   */
+  long add(String key) {
+    int hash1 = mix(key.hashCode());
+    int hash2 = mix(hash1 ^ 0x9e3779b9) | 1;
+    long min = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      int column = (hash1 + row * hash2) & mask;
+      min = Math.min(min, counters.incrementAndGet(row * width + column));
+    }
+    return min;
+  }
+}
@@ -0,0 +1,25 @@
+package dev.mdz.streaming.euphoria.hotspots;
+
+/** A frequently requested resource (<code>id.extension</code>) or region of a resource. */
+public class Hotspot {
+
+  private final long count;
+  private final String key;
+
+  Hotspot(String key, long count) {
+    this.key = key;
+    this.count = count;
+  }
+
+  /** Estimated number of requests in the window, never less than the real number. */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return <code>id.extension</code> of a resource or <code>id.extension@offset</code> of a region
+   */
+  public String getKey() {
+    return key;
+  }
+}
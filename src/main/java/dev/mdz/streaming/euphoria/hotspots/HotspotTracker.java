@@ -0,0 +1,193 @@
+package dev.mdz.streaming.euphoria.hotspots;
+
+import dev.mdz.streaming.euphoria.config.HotspotProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks which resources and which regions of resources are requested most frequently right now.
+ *
+ * <p>Requests are counted per time window in {@link CountMinSketch}es and the keys with the highest
+ * counts are kept in {@link TopK} slots, one pair for resources (<code>id.extension</code>) and one
+ * for regions (the block-aligned start offsets of the requested ranges). Only the current and the
+ * previous window are kept, so memory is fixed regardless of the number of distinct resources. All
+ * updates are lock-free.
+ *
+ * <p>The counts of the previous (complete) window are exposed as gauges <code>
+ * euphoria.hotspots.resources</code> and <code>euphoria.hotspots.regions</code>, tagged by rank
+ * only to keep the number of time series fixed. The keys of both windows are listed by the <code>
+ * /monitoring/hotspots</code> endpoint. Windows are replaced when they are over on recording as
+ * well as on reading, so a window without any requests is reported as empty. The rankings of the
+ * previous window are read from the window itself, so requests recorded just before it was replaced
+ * are not lost.
+ */
+@Component
+public class HotspotTracker {
+
+  private final long blockSize;
+  private final int depth;
+  private final boolean enabled;
+  private final int topK;
+  private final int width;
+  private final long windowMillis;
+  private final AtomicReference<Windows> windows;
+
+  public HotspotTracker(HotspotProperties properties, MeterRegistry meterRegistry) {
+    this.blockSize = Math.max(1, properties.getBlockSize().toBytes());
+    this.depth = properties.getDepth();
+    this.enabled = properties.isEnabled();
+    this.topK = properties.getTopK();
+    this.width = properties.getWidth();
+    this.windowMillis = Math.max(1, properties.getWindow().toMillis());
+    this.windows =
+        new AtomicReference<>(
+            enabled ? new Windows(newWindow(System.currentTimeMillis()), null) : null);
+    if (!enabled) {
+      return;
+    }
+
+    for (int rank = 0; rank < topK; rank++) {
+      int index = rank;
+      Gauge.builder(
+              "euphoria.hotspots.resources",
+              this,
+              tracker -> getCount(tracker.getPreviousWindow().getResources(), index))
+          .description("Estimated requests of the most frequent resources in the last window")
+          .tag("rank", String.valueOf(rank + 1))
+          .register(meterRegistry);
+      Gauge.builder(
+              "euphoria.hotspots.regions",
+              this,
+              tracker -> getCount(tracker.getPreviousWindow().getRegions(), index))
+          .description("Estimated ranges starting in the most frequent regions in the last window")
+          .tag("rank", String.valueOf(rank + 1))
+          .register(meterRegistry);
+    }
+  }
+
+  private static HotspotWindow emptyWindow(long start) {
+    return new HotspotWindow(Instant.ofEpochMilli(start), 0, List.of(), List.of());
+  }
+
+  private static double getCount(List<Hotspot> ranking, int index) {
+    return index < ranking.size() ? ranking.get(index).getCount() : 0;
+  }
+
+  private Window newWindow(long now) {
+    return new Window(now - now % windowMillis);
+  }
+
+  /** Returns the windows of the given time, the current window is replaced if it is over. */
+  private Windows getWindows(long now) {
+    while (true) {
+      Windows windows = this.windows.get();
+      if (now - windows.current.start < windowMillis) {
+        return windows;
+      }
+      Window next = newWindow(now);
+      // a window older than the previous one is dropped, there were no requests in between
+      Windows replaced =
+          new Windows(
+              next, windows.current.start == next.start - windowMillis ? windows.current : null);
+      if (this.windows.compareAndSet(windows, replaced)) {
+        return replaced;
+      }
+    }
+  }
+
+  private Window getWindow(long now) {
+    return getWindows(now).current;
+  }
+
+  /**
+   * @return the rankings of the running window, or null if tracking is disabled
+   */
+  public HotspotWindow getCurrentWindow() {
+    return enabled ? getWindow(System.currentTimeMillis()).snapshot() : null;
+  }
+
+  /**
+   * @return the rankings of the last complete window, or null if tracking is disabled
+   */
+  public HotspotWindow getPreviousWindow() {
+    if (!enabled) {
+      return null;
+    }
+    Windows windows = getWindows(System.currentTimeMillis());
+    if (windows.previous == null) {
+      // the first window since start-up is still running, or the previous one had no requests
+      return emptyWindow(windows.current.start - windowMillis);
+    }
+    return windows.previous.snapshot();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Count a range request.
+   *
+   * @param key <code>id.extension</code> of the resource
+   * @param offset the start offset of the range
+   */
+  public void recordRange(String key, long offset) {
+    if (enabled) {
+      Window window = getWindow(System.currentTimeMillis());
+      String region = key + "@" + (offset - offset % blockSize);
+      window.regions.offer(region, window.regionCounts.add(region));
+    }
+  }
+
+  /**
+   * Count a request of a resource.
+   *
+   * @param key <code>id.extension</code> of the resource
+   */
+  public void recordResource(String key) {
+    if (enabled) {
+      Window window = getWindow(System.currentTimeMillis());
+      window.requests.incrementAndGet();
+      window.resources.offer(key, window.resourceCounts.add(key));
+    }
+  }
+
+  private final class Window {
+
+    final CountMinSketch regionCounts = new CountMinSketch(depth, width);
+    final TopK regions = new TopK(topK);
+    final AtomicLong requests = new AtomicLong();
+    final CountMinSketch resourceCounts = new CountMinSketch(depth, width);
+    final TopK resources = new TopK(topK);
+    final long start;
+
+    Window(long start) {
+      this.start = start;
+    }
+
+    HotspotWindow snapshot() {
+      return new HotspotWindow(
+          Instant.ofEpochMilli(start),
+          requests.get(),
+          resources.getRanking(),
+          regions.getRanking());
+    }
+  }
+
+  /** The running window and the previous one, replaced together. */
+  private static final class Windows {
+
+    final Window current;
+    final Window previous;
+
+    Windows(Window current, Window previous) {
+      this.current = current;
+      this.previous = previous;
+    }
+  }
+}
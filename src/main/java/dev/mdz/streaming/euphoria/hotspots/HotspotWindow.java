@@ -0,0 +1,40 @@
+package dev.mdz.streaming.euphoria.hotspots;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/** The most frequently requested resources and regions of a time window. */
+public class HotspotWindow {
+
+  private final List<Hotspot> regions;
+  private final long requests;
+  private final List<Hotspot> resources;
+  private final Instant start;
+
+  HotspotWindow(Instant start, long requests, List<Hotspot> resources, List<Hotspot> regions) {
+    this.start = start;
+    this.requests = requests;
+    this.resources = Collections.unmodifiableList(resources);
+    this.regions = Collections.unmodifiableList(regions);
+  }
+
+  /** Regions (offsets aligned to the block size) at which most ranges started, highest first. */
+  public List<Hotspot> getRegions() {
+    return regions;
+  }
+
+  /** Number of requests of resources in the window. */
+  public long getRequests() {
+    return requests;
+  }
+
+  /** Most frequently requested resources, highest first. */
+  public List<Hotspot> getResources() {
+    return resources;
+  }
+
+  public Instant getStart() {
+    return start;
+  }
+}
@@ -0,0 +1,28 @@
+package dev.mdz.streaming.euphoria.hotspots;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint listing the most frequently requested resources and regions of the running and
+ * the last complete time window (<code>GET /monitoring/hotspots</code>).
+ */
+@Component
+@Endpoint(id = "hotspots")
+public class HotspotsEndpoint {
+
+  @Autowired HotspotTracker hotspotTracker;
+
+  @ReadOperation
+  public Map<String, Object> hotspots() {
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("enabled", hotspotTracker.isEnabled());
+    result.put("current", hotspotTracker.getCurrentWindow());
+    result.put("previous", hotspotTracker.getPreviousWindow());
+    return result;
+  }
+}
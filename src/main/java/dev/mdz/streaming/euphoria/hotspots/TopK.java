@@ -0,0 +1,89 @@
+package dev.mdz.streaming.euphoria.hotspots;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The keys with the highest estimated counts, in a fixed number of slots.
+ *
+ * <p>Slots are replaced with compare-and-set: a key already present gets its new count, another key
+ * replaces the slot with the lowest count if its count is higher. Concurrent updates may insert a
+ * key twice, duplicates are merged when the ranking is read.
+ */
+final class TopK {
+
+  private final AtomicReferenceArray<Hotspot> slots;
+
+  TopK(int size) {
+    this.slots = new AtomicReferenceArray<>(Math.max(1, size));
+  }
+
+  /**
+   * @param key a key
+   * @param count the current estimated count of the key
+   */
+  void offer(String key, long count) {
+    while (true) {
+      int minIndex = -1;
+      Hotspot min = null;
+      boolean retry = false;
+      for (int i = 0; i < slots.length(); i++) {
+        Hotspot slot = slots.get(i);
+        if (slot == null) {
+          if (slots.compareAndSet(i, null, new Hotspot(key, count))) {
+            return;
+          }
+          retry = true;
+          break;
+        }
+        if (slot.getKey().equals(key)) {
+          if (slot.getCount() >= count || slots.compareAndSet(i, slot, new Hotspot(key, count))) {
+            return;
+          }
+          retry = true;
+          break;
+        }
+        if (min == null || slot.getCount() < min.getCount()) {
+          min = slot;
+          minIndex = i;
+        }
+      }
+      if (retry) {
+        continue;
+      }
+      if (min == null
+          || count <= min.getCount()
+          || slots.compareAndSet(minIndex, min, new Hotspot(key, count))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return the keys with the highest counts, highest first
+   */
+  List<Hotspot> getRanking() {
+    Map<String, Hotspot> merged = new HashMap<>();
+    for (int i = 0; i < slots.length(); i++) {
+      Hotspot slot = slots.get(i);
+      if (slot != null) {
+        merged.merge(slot.getKey(), slot, (a, b) -> a.getCount() >= b.getCount() ? a : b);
+      }
+    }
+    PriorityQueue<Hotspot> heap =
+        new PriorityQueue<>(
+            Math.max(1, merged.size()),
+            Comparator.comparingLong(Hotspot::getCount).reversed().thenComparing(Hotspot::getKey));
+    heap.addAll(merged.values());
+    List<Hotspot> ranking = new ArrayList<>(heap.size());
+    while (!heap.isEmpty()) {
+      ranking.add(heap.poll());
+    }
+    return ranking;
+  }
+}
@@ -0,0 +1,154 @@
+package dev.mdz.streaming.euphoria.live;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams a single live file to one client.
+ *
+ * <p>Data is written as long as the output accepts it without blocking. If it doesn't, the
+ * container calls {@link #onWritePossible()} again later; if the end of the file is reached, a
+ * check for appended data is scheduled. Only one of both is pending at any time.
+ */
+class LiveFollower implements WriteListener, AsyncListener {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LiveFollower.class);
+
+  private final AsyncContext asyncContext;
+  private final ByteBuffer buffer;
+  private final FileChannel channel;
+  private boolean done;
+  private long lastGrowth;
+  private final ServletOutputStream output;
+  private final Path path;
+  private long pollInterval;
+  private long position;
+  private final LiveStreamService service;
+
+  LiveFollower(
+      LiveStreamService service,
+      AsyncContext asyncContext,
+      ServletOutputStream output,
+      FileChannel channel,
+      Path path) {
+    this.service = service;
+    this.asyncContext = asyncContext;
+    this.output = output;
+    this.channel = channel;
+    this.path = path;
+    this.buffer = ByteBuffer.allocate(service.getBufferSize());
+    this.lastGrowth = System.currentTimeMillis();
+    this.pollInterval = service.getMinPollIntervalMillis();
+  }
+
+  private synchronized void finish() {
+    if (done) {
+      return;
+    }
+    done = true;
+    try {
+      channel.close();
+    } catch (IOException e) {
+      LOGGER.debug("Error closing live file {}: {}", path, e.getMessage());
+    }
+    service.released();
+  }
+
+  @Override
+  public void onComplete(AsyncEvent event) {
+    finish();
+  }
+
+  @Override
+  public void onError(AsyncEvent event) {
+    finish();
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    LOGGER.debug("Client of live file {} went away: {}", path, t.getMessage());
+    finish();
+    asyncContext.complete();
+  }
+
+  @Override
+  public void onStartAsync(AsyncEvent event) {
+    // nothing to do
+  }
+
+  @Override
+  public void onTimeout(AsyncEvent event) {
+    finish();
+  }
+
+  @Override
+  public synchronized void onWritePossible() throws IOException {
+    while (!done && output.isReady()) {
+      buffer.clear();
+      int read = channel.read(buffer, position);
+      if (read > 0) {
+        output.write(buffer.array(), 0, read);
+        position += read;
+        lastGrowth = System.currentTimeMillis();
+        pollInterval = service.getMinPollIntervalMillis();
+        continue;
+      }
+
+      // caught up with the recorder
+      boolean live = service.isLive(path);
+      if (!live && channel.size() <= position) {
+        LOGGER.debug("Live file {} is complete after {} bytes", path, position);
+        finish();
+        asyncContext.complete();
+        return;
+      }
+      if (live && System.currentTimeMillis() - lastGrowth > service.getIdleTimeoutMillis()) {
+        LOGGER.warn("Live file {} did not grow for too long, ending response", path);
+        finish();
+        asyncContext.complete();
+        return;
+      }
+      if (live) {
+        output.flush();
+        if (!output.isReady()) {
+          // the container calls again when the flush is done
+          return;
+        }
+        schedulePoll();
+        return;
+      }
+      // the marker is gone, but the file is longer than expected: read the remainder
+    }
+  }
+
+  private void poll() {
+    try {
+      onWritePossible();
+    } catch (IOException e) {
+      onError(e);
+    }
+  }
+
+  private void schedulePoll() {
+    long delay = pollInterval;
+    pollInterval = Math.min(pollInterval * 2, service.getMaxPollIntervalMillis());
+    try {
+      service.getScheduler().schedule(this::poll, delay, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // shutting down
+      finish();
+      asyncContext.complete();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package dev.mdz.streaming.euphoria.live;
+
+import dev.mdz.streaming.euphoria.config.LiveProperties;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Follow mode for local files that are still being recorded ("live" files).
+ *
+ * <p>A live file is streamed from the start with chunked encoding. When the client has caught up
+ * with the recorder, the response is not ended: the file is checked for appended data on a small
+ * shared scheduler, with an interval growing from the minimum to the maximum poll interval while
+ * nothing is appended. Writes are non-blocking (servlet async I/O), so neither waiting for data nor
+ * waiting for slow clients occupies a thread per viewer. When the live marker is removed and all
+ * data is sent, the response ends; from then on the file is served like any other resource.
+ */
+@Service
+public class LiveStreamService {
+
+  private final int bufferSize;
+  private final boolean enabled;
+  private final AtomicInteger followers = new AtomicInteger();
+  private final long idleTimeoutMillis;
+  private final String markerSuffix;
+  private final long maxPollIntervalMillis;
+  private final long minPollIntervalMillis;
+  private final ScheduledExecutorService scheduler;
+
+  public LiveStreamService(LiveProperties properties, MeterRegistry meterRegistry) {
+    this.enabled = properties.isEnabled();
+    this.bufferSize = (int) properties.getBufferSize().toBytes();
+    this.idleTimeoutMillis = properties.getIdleTimeout().toMillis();
+    this.markerSuffix = properties.getMarkerSuffix();
+    this.maxPollIntervalMillis = properties.getMaxPollInterval().toMillis();
+    this.minPollIntervalMillis = properties.getMinPollInterval().toMillis();
+    this.scheduler =
+        enabled
+            ? Executors.newScheduledThreadPool(
+                properties.getPollThreads(), new CustomizableThreadFactory("live-follow-"))
+            : null;
+    Gauge.builder("euphoria.live.followers", followers, AtomicInteger::get)
+        .description("Number of clients following live files")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Streams the given live file to the client, following appended data until the file is complete.
+   * The request is switched to async mode, this method returns immediately.
+   *
+   * @param request the request
+   * @param response the response, with all headers except the content length already set
+   * @param path the path of the live file
+   * @throws IOException if the file can't be opened
+   */
+  public void follow(HttpServletRequest request, HttpServletResponse response, Path path)
+      throws IOException {
+    ServletOutputStream output = response.getOutputStream();
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    LiveFollower follower;
+    try {
+      AsyncContext asyncContext = request.startAsync(request, response);
+      // the follower ends the response itself, see idle timeout
+      asyncContext.setTimeout(0);
+      follower = new LiveFollower(this, asyncContext, output, channel, path);
+      asyncContext.addListener(follower);
+    } catch (RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    followers.incrementAndGet();
+    output.setWriteListener(follower);
+  }
+
+  int getBufferSize() {
+    return bufferSize;
+  }
+
+  long getIdleTimeoutMillis() {
+    return idleTimeoutMillis;
+  }
+
+  /**
+   * Returns the path of the given resource if it is a live file.
+   *
+   * @param resource a resolved resource
+   * @return the path of the file or <code>null</code> if the resource is not a live local file (or
+   *     the follow mode is disabled)
+   */
+  public Path getLivePath(StreamingResource resource) {
+    if (!enabled || !resource.getLocation().startsWith("file:")) {
+      return null;
+    }
+    Path path = Path.of(URI.create(resource.getLocation()));
+    return isLive(path) ? path : null;
+  }
+
+  long getMaxPollIntervalMillis() {
+    return maxPollIntervalMillis;
+  }
+
+  long getMinPollIntervalMillis() {
+    return minPollIntervalMillis;
+  }
+
+  ScheduledExecutorService getScheduler() {
+    return scheduler;
+  }
+
+  boolean isLive(Path path) {
+    return Files.exists(Path.of(path + markerSuffix));
+  }
+
+  void released() {
+    followers.decrementAndGet();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package dev.mdz.streaming.euphoria.resource;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a byte range of a {@link FileChannel} with positional reads, i.e. without touching the
+ * channel's own position. The channel is closed together with this stream.
+ */
+public class FileChannelInputStream extends InputStream {
+
+  private final FileChannel channel;
+  private final long end;
+  private long position;
+
+  /**
+   * @param channel the channel to read from
+   * @param start offset of the first byte to read
+   * @param end offset after the last byte to read
+   */
+  @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "This stream owns the channel")
+  public FileChannelInputStream(FileChannel channel, long start, long end) {
+    this.channel = channel;
+    this.position = start;
+    this.end = end;
+  }
+
+  @Override
+  public int available() {
+    return (int) Math.min(Integer.MAX_VALUE, end - position);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+    return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (position >= end) {
+      return -1;
+    }
+    int toRead = (int) Math.min(len, end - position);
+    int read = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+    if (read > 0) {
+      position += read;
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long n) {
+    long skipped = Math.max(0, Math.min(n, end - position));
+    position += skipped;
+    return skipped;
+  }
+}
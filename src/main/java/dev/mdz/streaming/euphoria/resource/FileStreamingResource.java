@@ -0,0 +1,89 @@
+package dev.mdz.streaming.euphoria.resource;
+
+import de.digitalcollections.commons.file.business.api.FileResourceService;
+import de.digitalcollections.model.exception.ResourceIOException;
+import de.digitalcollections.model.exception.ResourceNotFoundException;
+import de.digitalcollections.model.identifiable.resource.FileResource;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+/**
+ * A {@link FileResource} as found by the {@link FileResourceService}. Local files are opened
+ * directly at the requested position, all other locations are read through the service.
+ */
+public class FileStreamingResource implements StreamingResource {
+
+  private final FileResource fileResource;
+  private final FileResourceService fileResourceService;
+
+  @SuppressFBWarnings(
+      value = "EI_EXPOSE_REP2",
+      justification = "The file resource is shared on purpose, it is never modified")
+  public FileStreamingResource(FileResource fileResource, FileResourceService fileResourceService) {
+    this.fileResource = fileResource;
+    this.fileResourceService = fileResourceService;
+  }
+
+  @Override
+  public String getFilename() {
+    return fileResource.getFilename();
+  }
+
+  @Override
+  public String getLocation() {
+    return String.valueOf(fileResource.getUri());
+  }
+
+  @Override
+  public LocalDateTime getLastModified() {
+    return fileResource.getLastModified();
+  }
+
+  @Override
+  public long getSizeInBytes() {
+    return fileResource.getSizeInBytes();
+  }
+
+  @Override
+  public InputStream getInputStream(long position)
+      throws ResourceIOException, ResourceNotFoundException {
+    URI uri = fileResource.getUri();
+    if (uri != null && "file".equals(uri.getScheme())) {
+      try {
+        FileChannel channel = FileChannel.open(Path.of(uri), StandardOpenOption.READ);
+        try {
+          channel.position(position);
+        } catch (IOException e) {
+          channel.close();
+          throw e;
+        }
+        return Channels.newInputStream(channel);
+      } catch (NoSuchFileException e) {
+        throw new ResourceNotFoundException("File " + uri + " does not exist (anymore)", e);
+      } catch (IOException e) {
+        throw new ResourceIOException(e);
+      }
+    }
+
+    InputStream input = fileResourceService.getInputStream(fileResource);
+    try {
+      input.skipNBytes(position);
+    } catch (IOException e) {
+      try {
+        input.close();
+      } catch (IOException ignore) {
+        // the skip failure is the relevant one
+      }
+      throw new ResourceIOException(e);
+    }
+    return input;
+  }
+}
@@ -0,0 +1,65 @@
+package dev.mdz.streaming.euphoria.resource;
+
+import de.digitalcollections.model.exception.ResourceIOException;
+import de.digitalcollections.model.exception.ResourceNotFoundException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+
+/** A resolved resource whose content can be read starting at an arbitrary byte offset. */
+public interface StreamingResource {
+
+  /**
+   * @return the filename (incl. extension) used for content type and disposition
+   */
+  String getFilename();
+
+  /**
+   * @return a stable location of the content, e.g. its uri
+   */
+  String getLocation();
+
+  /**
+   * @return the last modification time of the content (UTC)
+   */
+  LocalDateTime getLastModified();
+
+  /**
+   * @return the length of the content in bytes, or -1 if unknown
+   */
+  long getSizeInBytes();
+
+  /**
+   * @return a short fingerprint of the content version, if location, size and modification time
+   *     don't identify it (e.g. for resources composed of several files), otherwise <code>null
+   *     </code>
+   */
+  default String getFingerprint() {
+    return null;
+  }
+
+  /**
+   * Open the content for reading, starting at the given byte offset.
+   *
+   * @param position byte offset of the first byte to be read
+   * @return a stream positioned at the given offset, to be closed by the caller
+   * @throws ResourceIOException if the content can not be read
+   * @throws ResourceNotFoundException if the content does not exist (anymore)
+   */
+  InputStream getInputStream(long position) throws ResourceIOException, ResourceNotFoundException;
+
+  /**
+   * Open the given byte range of the content for reading. Resources that can fetch a limited range
+   * more efficiently (e.g. from remote storage) override this, by default the stream covers the
+   * remainder of the content and the caller stops reading after the range.
+   *
+   * @param position byte offset of the first byte to be read
+   * @param length number of bytes the caller is going to read
+   * @return a stream positioned at the given offset, to be closed by the caller
+   * @throws ResourceIOException if the content can not be read
+   * @throws ResourceNotFoundException if the content does not exist (anymore)
+   */
+  default InputStream getInputStream(long position, long length)
+      throws ResourceIOException, ResourceNotFoundException {
+    return getInputStream(position);
+  }
+}
@@ -0,0 +1,23 @@
+package dev.mdz.streaming.euphoria.resource;
+
+import de.digitalcollections.model.exception.ResourceIOException;
+
+/**
+ * Resolves resource uris of a specific scheme (as configured in the <code>resourceRepository
+ * </code> substitutions) that are not handled by the plain file resource service.
+ */
+public interface StreamingResourceProvider {
+
+  /**
+   * @param uri a resolved resource uri, e.g. <code>zip:/data/batch42.zip!/0001.xml</code>
+   * @return true if this provider is responsible for the given uri
+   */
+  boolean supports(String uri);
+
+  /**
+   * @param uri a resolved resource uri supported by this provider
+   * @return the resource or null if it does not exist
+   * @throws ResourceIOException if the resource exists but can not be accessed
+   */
+  StreamingResource resolve(String uri) throws ResourceIOException;
+}
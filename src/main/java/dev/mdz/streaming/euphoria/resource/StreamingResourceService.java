@@ -0,0 +1,111 @@
+package dev.mdz.streaming.euphoria.resource;
+
+import de.digitalcollections.commons.file.backend.impl.IdentifierPatternToFileResourceUriResolverImpl;
+import de.digitalcollections.commons.file.backend.impl.IdentifierPatternToFileResourceUriResolvingConfig;
+import de.digitalcollections.commons.file.business.api.FileResourceService;
+import de.digitalcollections.model.exception.ResourceIOException;
+import de.digitalcollections.model.exception.ResourceNotFoundException;
+import de.digitalcollections.model.file.MimeType;
+import dev.mdz.streaming.euphoria.resource.cache.DiskCache;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resolves identifiers to {@link StreamingResource}s.
+ *
+ * <p>The <code>resourceRepository</code> substitutions are evaluated in their configured order.
+ * Uris handled by a {@link StreamingResourceProvider} (e.g. archive members) are resolved by that
+ * provider, all other uris are left to the {@link FileResourceService}. If enabled, the resolved
+ * resources are read through the {@link DiskCache}.
+ */
+@Service
+public class StreamingResourceService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StreamingResourceService.class);
+
+  @Autowired DiskCache diskCache;
+
+  @Autowired FileResourceService fileResourceService;
+
+  @Autowired List<StreamingResourceProvider> providers;
+
+  @Autowired IdentifierPatternToFileResourceUriResolvingConfig resolvingConfig;
+
+  /**
+   * @param id identifier of the resource
+   * @param extension (target) file extension of the resource
+   * @return the first existing resource of all configured candidates
+   * @throws ResourceIOException if no candidate could be resolved
+   * @throws ResourceNotFoundException if the resolved resource does not exist
+   */
+  public StreamingResource find(String id, String extension)
+      throws ResourceIOException, ResourceNotFoundException {
+    StreamingResource resource = resolve(id, extension);
+    return diskCache.isEnabled() ? diskCache.wrap(resource) : resource;
+  }
+
+  private StreamingResource resolve(String id, String extension)
+      throws ResourceIOException, ResourceNotFoundException {
+    List<String> candidates = getCandidateUris(id, extension);
+    boolean fileResourcesTried = false;
+    ResourceIOException lastException = null;
+    for (String uri : candidates) {
+      StreamingResourceProvider provider = getProvider(uri);
+      if (provider != null) {
+        try {
+          StreamingResource resource = provider.resolve(uri);
+          if (resource != null) {
+            LOGGER.debug("Resolved {}.{} to {}", id, extension, uri);
+            return resource;
+          }
+        } catch (ResourceIOException e) {
+          LOGGER.warn("Can not access {}: {}", uri, e.getMessage());
+          lastException = e;
+        }
+      } else if (!fileResourcesTried) {
+        // the file resource service evaluates all of its candidates at once
+        fileResourcesTried = true;
+        try {
+          return new FileStreamingResource(
+              fileResourceService.find(id, extension), fileResourceService);
+        } catch (ResourceIOException e) {
+          lastException = e;
+        }
+      }
+    }
+    if (lastException != null) {
+      throw lastException;
+    }
+    throw new ResourceIOException("No resource found for " + id + "." + extension);
+  }
+
+  private List<String> getCandidateUris(String id, String extension) {
+    MimeType mimeType = MimeType.fromExtension(extension);
+    List<String> uris = new ArrayList<>();
+    if (resolvingConfig.getPatterns() == null) {
+      return uris;
+    }
+    for (IdentifierPatternToFileResourceUriResolverImpl resolver : resolvingConfig.getPatterns()) {
+      if (resolver.isResolvable(id)) {
+        uris.addAll(
+            mimeType != null
+                ? resolver.getUrisAsStrings(id, mimeType)
+                : resolver.getUrisAsStrings(id));
+      }
+    }
+    return uris;
+  }
+
+  private StreamingResourceProvider getProvider(String uri) {
+    for (StreamingResourceProvider provider : providers) {
+      if (provider.supports(uri)) {
+        return provider;
+      }
+    }
+    return null;
+  }
+}
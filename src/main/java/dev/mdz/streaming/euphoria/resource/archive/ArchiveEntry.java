@@ -0,0 +1,92 @@
+package dev.mdz.streaming.euphoria.resource.archive;
+
+import java.time.LocalDateTime;
+
+/** Location and metadata of a single member inside of a container file. */
+public class ArchiveEntry {
+
+  /** Compression method of uncompressed (stored) members. */
+  public static final int METHOD_STORED = 0;
+
+  /** Compression method of deflated ZIP members. */
+  public static final int METHOD_DEFLATED = 8;
+
+  private final long compressedSize;
+  private final boolean encrypted;
+  private final long headerOffset;
+  private final LocalDateTime lastModified;
+  private final int method;
+  private final String name;
+  private final long size;
+
+  public ArchiveEntry(
+      String name,
+      int method,
+      long headerOffset,
+      long compressedSize,
+      long size,
+      LocalDateTime lastModified) {
+    this(name, method, headerOffset, compressedSize, size, lastModified, false);
+  }
+
+  public ArchiveEntry(
+      String name,
+      int method,
+      long headerOffset,
+      long compressedSize,
+      long size,
+      LocalDateTime lastModified,
+      boolean encrypted) {
+    this.name = name;
+    this.method = method;
+    this.headerOffset = headerOffset;
+    this.compressedSize = compressedSize;
+    this.size = size;
+    this.lastModified = lastModified;
+    this.encrypted = encrypted;
+  }
+
+  /**
+   * @return number of bytes the member occupies in the container file
+   */
+  public long getCompressedSize() {
+    return compressedSize;
+  }
+
+  /**
+   * @return offset of the member's (local) header in the container file
+   */
+  public long getHeaderOffset() {
+    return headerOffset;
+  }
+
+  public LocalDateTime getLastModified() {
+    return lastModified;
+  }
+
+  public int getMethod() {
+    return method;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the uncompressed size of the member
+   */
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * @return true if the member's data is encrypted and can not be served
+   */
+  public boolean isEncrypted() {
+    return encrypted;
+  }
+
+  public boolean isStored() {
+    return method == METHOD_STORED;
+  }
+}
@@ -0,0 +1,58 @@
+package dev.mdz.streaming.euphoria.resource.archive;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/** Lookup of members by name inside of a single container file. */
+public abstract class ArchiveIndex {
+
+  private final Path path;
+  private final long archiveSize;
+  private final FileTime archiveLastModified;
+
+  protected ArchiveIndex(Path path, long archiveSize, FileTime archiveLastModified) {
+    this.path = path;
+    this.archiveSize = archiveSize;
+    this.archiveLastModified = archiveLastModified;
+  }
+
+  /**
+   * @param name the member name (path inside of the archive, without leading slash)
+   * @return the member or null if there is no such (regular file) member
+   */
+  public abstract ArchiveEntry getEntry(String name);
+
+  /**
+   * @param entry a member of this archive
+   * @param channel an open channel of the container file
+   * @return offset of the member's first data byte in the container file
+   * @throws IOException if the member's header can not be read
+   */
+  public abstract long getDataOffset(ArchiveEntry entry, FileChannel channel) throws IOException;
+
+  /**
+   * @return the number of indexed members
+   */
+  public abstract int getEntryCount();
+
+  @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "FileTime is immutable")
+  public FileTime getArchiveLastModified() {
+    return archiveLastModified;
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  /**
+   * @param size current size of the container file
+   * @param lastModified current modification time of the container file
+   * @return true if the index still describes the container file
+   */
+  public boolean isUpToDate(long size, FileTime lastModified) {
+    return archiveSize == size && archiveLastModified.equals(lastModified);
+  }
+}
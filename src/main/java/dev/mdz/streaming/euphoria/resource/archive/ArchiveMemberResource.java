@@ -0,0 +1,106 @@
+package dev.mdz.streaming.euphoria.resource.archive;
+
+import de.digitalcollections.model.exception.ResourceIOException;
+import de.digitalcollections.model.exception.ResourceNotFoundException;
+import dev.mdz.streaming.euphoria.resource.FileChannelInputStream;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import org.apache.commons.io.FilenameUtils;
+
+/**
+ * A single member of a container file. Stored members are read with positional reads at the
+ * requested offset, deflated members are inflated from their start.
+ */
+public class ArchiveMemberResource implements StreamingResource {
+
+  private static final int INFLATER_BUFFER_SIZE = 8192;
+
+  private final ArchiveEntry entry;
+  private final ArchiveIndex index;
+
+  public ArchiveMemberResource(ArchiveIndex index, ArchiveEntry entry) {
+    this.index = index;
+    this.entry = entry;
+  }
+
+  @Override
+  public String getFilename() {
+    return FilenameUtils.getName(entry.getName());
+  }
+
+  @Override
+  public String getLocation() {
+    String scheme = index instanceof ZipArchiveIndex ? "zip:" : "tar:";
+    return scheme + index.getPath() + "!/" + entry.getName();
+  }
+
+  @Override
+  public LocalDateTime getLastModified() {
+    return entry.getLastModified();
+  }
+
+  @Override
+  public long getSizeInBytes() {
+    return entry.getSize();
+  }
+
+  @Override
+  public InputStream getInputStream(long position)
+      throws ResourceIOException, ResourceNotFoundException {
+    FileChannel channel = null;
+    try {
+      channel = FileChannel.open(index.getPath(), StandardOpenOption.READ);
+      long dataOffset = index.getDataOffset(entry, channel);
+      if (entry.isStored()) {
+        return new FileChannelInputStream(
+            channel, dataOffset + position, dataOffset + entry.getSize());
+      }
+      InputStream compressed =
+          new FileChannelInputStream(channel, dataOffset, dataOffset + entry.getCompressedSize());
+      InputStream inflated = new MemberInflaterInputStream(compressed);
+      inflated.skipNBytes(position);
+      return inflated;
+    } catch (NoSuchFileException e) {
+      close(channel);
+      throw new ResourceNotFoundException("Archive " + index.getPath() + " does not exist", e);
+    } catch (IOException e) {
+      close(channel);
+      throw new ResourceIOException(
+          "Can not read " + entry.getName() + " from " + index.getPath(), e);
+    }
+  }
+
+  private static void close(FileChannel channel) {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException ignore) {
+        // the original exception is the relevant one
+      }
+    }
+  }
+
+  /** Releases the native inflater together with the stream. */
+  private static class MemberInflaterInputStream extends InflaterInputStream {
+
+    MemberInflaterInputStream(InputStream in) {
+      super(in, new Inflater(true), INFLATER_BUFFER_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        inf.end();
+      }
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package dev.mdz.streaming.euphoria.resource.archive;
+
+import de.digitalcollections.model.exception.ResourceIOException;
+import dev.mdz.streaming.euphoria.config.ArchiveProperties;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import dev.mdz.streaming.euphoria.resource.StreamingResourceProvider;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves members of container files, e.g. <code>zip:/data/batch42.zip!/0001.xml</code> or <code>
+ * tar:/data/batch42.tar!/0001.xml</code>.
+ *
+ * <p>The index of each container file is cached (least recently used first out) and rebuilt when
+ * the size or modification time of the container file changes.
+ */
+@Component
+public class ArchiveResourceProvider implements StreamingResourceProvider {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ArchiveResourceProvider.class);
+  private static final String MEMBER_SEPARATOR = "!/";
+  private static final String SCHEME_TAR = "tar:";
+  private static final String SCHEME_ZIP = "zip:";
+
+  private final Map<Path, ArchiveIndex> indexes;
+
+  public ArchiveResourceProvider(ArchiveProperties properties) {
+    int maxCachedIndexes = properties.getMaxCachedIndexes();
+    this.indexes =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Path, ArchiveIndex> eldest) {
+            return size() > maxCachedIndexes;
+          }
+        };
+  }
+
+  @Override
+  public boolean supports(String uri) {
+    return (uri.startsWith(SCHEME_ZIP) || uri.startsWith(SCHEME_TAR))
+        && uri.contains(MEMBER_SEPARATOR);
+  }
+
+  @Override
+  public StreamingResource resolve(String uri) throws ResourceIOException {
+    int separator = uri.indexOf(MEMBER_SEPARATOR);
+    Path path = Path.of(uri.substring(SCHEME_ZIP.length(), separator));
+    String memberName = uri.substring(separator + MEMBER_SEPARATOR.length());
+    if (!Files.isRegularFile(path)) {
+      return null;
+    }
+    ArchiveIndex index;
+    try {
+      index = getIndex(path, uri.startsWith(SCHEME_ZIP));
+    } catch (IOException e) {
+      throw new ResourceIOException("Can not index archive " + path, e);
+    }
+    ArchiveEntry entry = index.getEntry(memberName);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.isEncrypted()) {
+      throw new ResourceIOException("Encrypted member " + uri + " can not be served");
+    }
+    if (entry.getMethod() != ArchiveEntry.METHOD_STORED
+        && entry.getMethod() != ArchiveEntry.METHOD_DEFLATED) {
+      throw new ResourceIOException(
+          "Unsupported compression method " + entry.getMethod() + " of " + uri);
+    }
+    return new ArchiveMemberResource(index, entry);
+  }
+
+  private ArchiveIndex getIndex(Path path, boolean zip) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    ArchiveIndex index;
+    synchronized (indexes) {
+      index = indexes.get(path);
+    }
+    if (index != null && index.isUpToDate(attributes.size(), attributes.lastModifiedTime())) {
+      return index;
+    }
+    // Indexing is done outside of the lock, concurrent first requests may index twice.
+    long start = System.currentTimeMillis();
+    index =
+        zip
+            ? ZipArchiveIndex.open(path, attributes.lastModifiedTime())
+            : TarArchiveIndex.open(path, attributes.lastModifiedTime());
+    LOGGER.info(
+        "Indexed {} members of {} in {} ms",
+        index.getEntryCount(),
+        path,
+        System.currentTimeMillis() - start);
+    synchronized (indexes) {
+      indexes.put(path, index);
+    }
+    return index;
+  }
+}
@@ -0,0 +1,205 @@
+package dev.mdz.streaming.euphoria.resource.archive;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of an (uncompressed) TAR file.
+ *
+ * <p>TAR files have no central directory, so all member headers are read once with positional reads
+ * (skipping the member data). Members are always stored, so their content can be read directly at
+ * <code>header offset + 512</code>. Supports ustar, GNU long names and the <code>path
+ * </code>/<code>size</code> records of pax headers.
+ */
+public class TarArchiveIndex extends ArchiveIndex {
+
+  private static final int BLOCK_SIZE = 512;
+
+  private final Map<String, ArchiveEntry> entries;
+
+  private TarArchiveIndex(
+      Path path,
+      long archiveSize,
+      FileTime archiveLastModified,
+      Map<String, ArchiveEntry> entries) {
+    super(path, archiveSize, archiveLastModified);
+    this.entries = entries;
+  }
+
+  /**
+   * Read all member headers of the given TAR file.
+   *
+   * @param path the TAR file
+   * @param archiveLastModified modification time of the TAR file when indexing started
+   * @return the index
+   * @throws IOException if the file is not a readable TAR file
+   */
+  public static TarArchiveIndex open(Path path, FileTime archiveLastModified) throws IOException {
+    Map<String, ArchiveEntry> entries = new HashMap<>();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long archiveSize = channel.size();
+      ByteBuffer header = ByteBuffer.allocate(BLOCK_SIZE);
+      long offset = 0;
+      String longName = null;
+      Long paxSize = null;
+
+      while (offset + BLOCK_SIZE <= archiveSize) {
+        header.clear();
+        while (header.hasRemaining()) {
+          if (channel.read(header, offset + header.position()) < 0) {
+            throw new IOException("Unexpected end of TAR file " + path);
+          }
+        }
+        byte[] block = header.array();
+        if (isZeroBlock(block)) {
+          break;
+        }
+        long size = parseNumber(block, 124, 12);
+        long dataOffset = offset + BLOCK_SIZE;
+        byte type = block[156];
+
+        if (type == 'L' || type == 'x') {
+          // GNU long name or pax extended header for the following member
+          byte[] data = new byte[(int) Math.min(size, Integer.MAX_VALUE)];
+          ByteBuffer buffer = ByteBuffer.wrap(data);
+          while (buffer.hasRemaining()) {
+            if (channel.read(buffer, dataOffset + buffer.position()) < 0) {
+              throw new IOException("Unexpected end of TAR file " + path);
+            }
+          }
+          if (type == 'L') {
+            longName = parseString(data, 0, data.length);
+          } else {
+            Map<String, String> records = parsePaxRecords(data);
+            if (records.containsKey("path")) {
+              longName = records.get("path");
+            }
+            if (records.containsKey("size")) {
+              paxSize = Long.parseLong(records.get("size"));
+            }
+          }
+        } else {
+          if (paxSize != null) {
+            size = paxSize;
+          }
+          if (type == '0' || type == 0) {
+            String name = longName != null ? longName : getName(block);
+            if (name.startsWith("./")) {
+              name = name.substring(2);
+            }
+            LocalDateTime lastModified =
+                LocalDateTime.ofEpochSecond(parseNumber(block, 136, 12), 0, ZoneOffset.UTC);
+            entries.put(
+                name,
+                new ArchiveEntry(
+                    name, ArchiveEntry.METHOD_STORED, offset, size, size, lastModified));
+          }
+          longName = null;
+          paxSize = null;
+        }
+        offset = dataOffset + (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+      }
+      return new TarArchiveIndex(path, archiveSize, archiveLastModified, entries);
+    }
+  }
+
+  private static String getName(byte[] block) {
+    String name = parseString(block, 0, 100);
+    if ("ustar".equals(parseString(block, 257, 5))) {
+      String prefix = parseString(block, 345, 155);
+      if (!prefix.isEmpty()) {
+        return prefix + "/" + name;
+      }
+    }
+    return name;
+  }
+
+  private static boolean isZeroBlock(byte[] block) {
+    for (byte b : block) {
+      if (b != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Numbers are octal ASCII, or big endian binary if the first byte has its high bit set. */
+  private static long parseNumber(byte[] block, int offset, int length) {
+    long value = 0;
+    if ((block[offset] & 0x80) != 0) {
+      for (int i = offset + 1; i < offset + length; i++) {
+        value = (value << 8) | (block[i] & 0xff);
+      }
+      return value;
+    }
+    for (int i = offset; i < offset + length; i++) {
+      byte b = block[i];
+      if (b >= '0' && b <= '7') {
+        value = (value << 3) + (b - '0');
+      } else if (b == 0 || value != 0) {
+        // leading spaces are skipped, a NUL or space terminates the number
+        break;
+      }
+    }
+    return value;
+  }
+
+  /** Pax records have the form <code>"%d %s=%s\n", length, keyword, value</code>. */
+  private static Map<String, String> parsePaxRecords(byte[] data) {
+    Map<String, String> records = new HashMap<>();
+    int offset = 0;
+    while (offset < data.length) {
+      int space = offset;
+      while (space < data.length && data[space] != ' ') {
+        space++;
+      }
+      if (space == offset || space >= data.length) {
+        break;
+      }
+      int length = Integer.parseInt(new String(data, offset, space - offset, UTF_8));
+      if (length <= 0 || offset + length > data.length) {
+        break;
+      }
+      String record = new String(data, space + 1, offset + length - space - 2, UTF_8);
+      int equals = record.indexOf('=');
+      if (equals > 0) {
+        records.put(record.substring(0, equals), record.substring(equals + 1));
+      }
+      offset += length;
+    }
+    return records;
+  }
+
+  private static String parseString(byte[] data, int offset, int length) {
+    int end = offset;
+    while (end < offset + length && data[end] != 0) {
+      end++;
+    }
+    return new String(data, offset, end - offset, UTF_8);
+  }
+
+  @Override
+  public long getDataOffset(ArchiveEntry entry, FileChannel channel) {
+    return entry.getHeaderOffset() + BLOCK_SIZE;
+  }
+
+  @Override
+  public ArchiveEntry getEntry(String name) {
+    return entries.get(name);
+  }
+
+  @Override
+  public int getEntryCount() {
+    return entries.size();
+  }
+}
@@ -0,0 +1,229 @@
+package dev.mdz.streaming.euphoria.resource.archive;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of a ZIP file based on its memory-mapped central directory.
+ *
+ * <p>Only the offsets of the central directory records are kept on the heap, all other member
+ * metadata is decoded from the mapping on lookup. The local file header of a member is only read
+ * when its data is opened, as the local extra field may differ from the central one.
+ */
+public class ZipArchiveIndex extends ArchiveIndex {
+
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int MAX_END_OF_CENTRAL_DIRECTORY_SIZE = 22 + 0xffff;
+  private static final long ZIP64_MAGIC = 0xffffffffL;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+  private final MappedByteBuffer centralDirectory;
+  private final Map<String, Integer> recordOffsets;
+
+  private ZipArchiveIndex(
+      Path path,
+      long archiveSize,
+      FileTime archiveLastModified,
+      MappedByteBuffer centralDirectory,
+      Map<String, Integer> recordOffsets) {
+    super(path, archiveSize, archiveLastModified);
+    this.centralDirectory = centralDirectory;
+    this.recordOffsets = recordOffsets;
+  }
+
+  /**
+   * Map and index the central directory of the given ZIP file.
+   *
+   * @param path the ZIP file
+   * @param archiveLastModified modification time of the ZIP file when indexing started
+   * @return the index
+   * @throws IOException if the file is not a readable ZIP file
+   */
+  public static ZipArchiveIndex open(Path path, FileTime archiveLastModified) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long archiveSize = channel.size();
+      int tailSize = (int) Math.min(archiveSize, MAX_END_OF_CENTRAL_DIRECTORY_SIZE);
+      ByteBuffer tail = read(channel, archiveSize - tailSize, tailSize);
+
+      int eocd = -1;
+      for (int i = tailSize - 22; i >= 0; i--) {
+        if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+          eocd = i;
+          break;
+        }
+      }
+      if (eocd < 0) {
+        throw new IOException("No ZIP end of central directory found in " + path);
+      }
+      long centralDirectorySize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+      long centralDirectoryOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+
+      if (centralDirectoryOffset == ZIP64_MAGIC || centralDirectorySize == ZIP64_MAGIC) {
+        long locatorOffset = archiveSize - tailSize + eocd - 20;
+        ByteBuffer locator = read(channel, locatorOffset, 20);
+        if (locator.getInt(0) != ZIP64_LOCATOR_SIGNATURE) {
+          throw new IOException("No ZIP64 end of central directory locator found in " + path);
+        }
+        ByteBuffer zip64Eocd = read(channel, locator.getLong(8), 56);
+        if (zip64Eocd.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+          throw new IOException("No ZIP64 end of central directory found in " + path);
+        }
+        centralDirectorySize = zip64Eocd.getLong(40);
+        centralDirectoryOffset = zip64Eocd.getLong(48);
+      }
+      if (centralDirectorySize > Integer.MAX_VALUE
+          || centralDirectoryOffset + centralDirectorySize > archiveSize) {
+        throw new IOException("Unsupported or corrupt ZIP central directory in " + path);
+      }
+
+      MappedByteBuffer centralDirectory =
+          channel.map(FileChannel.MapMode.READ_ONLY, centralDirectoryOffset, centralDirectorySize);
+      centralDirectory.order(ByteOrder.LITTLE_ENDIAN);
+
+      Map<String, Integer> recordOffsets = new HashMap<>();
+      int offset = 0;
+      while (offset + 46 <= centralDirectorySize
+          && centralDirectory.getInt(offset) == CENTRAL_HEADER_SIGNATURE) {
+        int nameLength = Short.toUnsignedInt(centralDirectory.getShort(offset + 28));
+        int extraLength = Short.toUnsignedInt(centralDirectory.getShort(offset + 30));
+        int commentLength = Short.toUnsignedInt(centralDirectory.getShort(offset + 32));
+        String name = getName(centralDirectory, offset);
+        if (!name.endsWith("/")) {
+          recordOffsets.put(name, offset);
+        }
+        offset += 46 + nameLength + extraLength + commentLength;
+      }
+      return new ZipArchiveIndex(
+          path, archiveSize, archiveLastModified, centralDirectory, recordOffsets);
+    }
+  }
+
+  private static String getName(ByteBuffer centralDirectory, int offset) {
+    int flags = Short.toUnsignedInt(centralDirectory.getShort(offset + 8));
+    int nameLength = Short.toUnsignedInt(centralDirectory.getShort(offset + 28));
+    byte[] name = new byte[nameLength];
+    centralDirectory.get(offset + 46, name);
+    // bit 11: name is UTF-8, otherwise legacy encoding (IBM437 if available)
+    Charset charset = (flags & 0x800) != 0 ? UTF_8 : legacyCharset();
+    return new String(name, charset);
+  }
+
+  private static Charset legacyCharset() {
+    return Charset.isSupported("IBM437") ? Charset.forName("IBM437") : ISO_8859_1;
+  }
+
+  private static LocalDateTime fromDosTime(int date, int time) {
+    try {
+      return LocalDateTime.of(
+          ((date >> 9) & 0x7f) + 1980,
+          (date >> 5) & 0x0f,
+          date & 0x1f,
+          (time >> 11) & 0x1f,
+          (time >> 5) & 0x3f,
+          (time & 0x1f) * 2);
+    } catch (DateTimeException e) {
+      return null;
+    }
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, int length)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of ZIP file");
+      }
+    }
+    return buffer;
+  }
+
+  @Override
+  public ArchiveEntry getEntry(String name) {
+    Integer recordOffset = recordOffsets.get(name);
+    if (recordOffset == null) {
+      return null;
+    }
+    int offset = recordOffset;
+    ByteBuffer cd = centralDirectory;
+    int flags = Short.toUnsignedInt(cd.getShort(offset + 8));
+    int method = Short.toUnsignedInt(cd.getShort(offset + 10));
+    int time = Short.toUnsignedInt(cd.getShort(offset + 12));
+    int date = Short.toUnsignedInt(cd.getShort(offset + 14));
+    long compressedSize = Integer.toUnsignedLong(cd.getInt(offset + 20));
+    long size = Integer.toUnsignedLong(cd.getInt(offset + 24));
+    int nameLength = Short.toUnsignedInt(cd.getShort(offset + 28));
+    int extraLength = Short.toUnsignedInt(cd.getShort(offset + 30));
+    long localHeaderOffset = Integer.toUnsignedLong(cd.getInt(offset + 42));
+
+    if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC) {
+      // ZIP64 extended information: only the fields set to the magic value are present, in order
+      int extra = offset + 46 + nameLength;
+      int extraEnd = extra + extraLength;
+      while (extra + 4 <= extraEnd) {
+        int id = Short.toUnsignedInt(cd.getShort(extra));
+        int length = Short.toUnsignedInt(cd.getShort(extra + 2));
+        if (id == ZIP64_EXTRA_FIELD_ID) {
+          int field = extra + 4;
+          if (size == ZIP64_MAGIC) {
+            size = cd.getLong(field);
+            field += 8;
+          }
+          if (compressedSize == ZIP64_MAGIC) {
+            compressedSize = cd.getLong(field);
+            field += 8;
+          }
+          if (localHeaderOffset == ZIP64_MAGIC) {
+            localHeaderOffset = cd.getLong(field);
+          }
+          break;
+        }
+        extra += 4 + length;
+      }
+    }
+
+    LocalDateTime lastModified = fromDosTime(date, time);
+    if (lastModified == null) {
+      lastModified = LocalDateTime.ofInstant(getArchiveLastModified().toInstant(), ZoneOffset.UTC);
+    }
+    // bit 0: data is encrypted (traditional PKWARE or strong encryption)
+    boolean encrypted = (flags & 0x1) != 0;
+    return new ArchiveEntry(
+        name, method, localHeaderOffset, compressedSize, size, lastModified, encrypted);
+  }
+
+  @Override
+  public long getDataOffset(ArchiveEntry entry, FileChannel channel) throws IOException {
+    ByteBuffer localHeader = read(channel, entry.getHeaderOffset(), 30);
+    if (localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+      throw new IOException("Invalid local header for " + entry.getName() + " in " + getPath());
+    }
+    return entry.getHeaderOffset()
+        + 30
+        + Short.toUnsignedInt(localHeader.getShort(26))
+        + Short.toUnsignedInt(localHeader.getShort(28));
+  }
+
+  @Override
+  public int getEntryCount() {
+    return recordOffsets.size();
+  }
+}
@@ -0,0 +1,426 @@
+package dev.mdz.streaming.euphoria.resource.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import dev.mdz.streaming.euphoria.config.DiskCacheProperties;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read-through cache of resource blocks on a local disk.
+ *
+ * <p>Resources are split into blocks of a fixed size. A block that was read often enough from the
+ * origin is copied asynchronously to the cache directory; later reads of that block are served from
+ * the local copy, while reads of other blocks still go to the origin. Blocks are keyed by location,
+ * size and modification time of the resource, so a changed resource never hits stale blocks (those
+ * are evicted like any other unused block). The directory is bounded by a quota, least recently
+ * used blocks are evicted first. Blocks of pinned resources are not evicted until the pin expires.
+ */
+@Component
+public class DiskCache {
+
+  private static final String BLOCK_SUFFIX = ".blk";
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiskCache.class);
+  private static final int MAX_TRACKED_BLOCKS = 100_000;
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final long blockSize;
+  private final Map<String, Long> blocks = new LinkedHashMap<>(1024, 0.75f, true);
+  private final Path directory;
+  private final boolean enabled;
+  private final ThreadPoolExecutor fillExecutor;
+  private final Counter fillBytes;
+  private final Counter hits;
+  private final long maxSize;
+  private final int minHits;
+  private final Counter misses;
+  private final Set<String> pendingFills = new HashSet<>();
+  private final Map<String, Instant> pins = new ConcurrentHashMap<>();
+  private final Map<String, Integer> readCounts =
+      new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+          return size() > MAX_TRACKED_BLOCKS;
+        }
+      };
+  private long size;
+
+  public DiskCache(DiskCacheProperties properties, MeterRegistry meterRegistry) {
+    this.enabled = properties.isEnabled();
+    this.blockSize = properties.getBlockSize().toBytes();
+    this.directory = properties.getDirectory();
+    this.maxSize = properties.getMaxSize().toBytes();
+    this.minHits = properties.getMinHits();
+
+    hits = meterRegistry.counter("euphoria.cache.disk.reads", "result", "hit");
+    misses = meterRegistry.counter("euphoria.cache.disk.reads", "result", "miss");
+    fillBytes =
+        Counter.builder("euphoria.cache.disk.fill")
+            .baseUnit("bytes")
+            .description("Bytes copied from the origin to the disk cache")
+            .register(meterRegistry);
+    Gauge.builder("euphoria.cache.disk.size", this, DiskCache::getSize)
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("euphoria.cache.disk.hit.ratio", this, DiskCache::getHitRatio)
+        .register(meterRegistry);
+
+    if (!enabled) {
+      fillExecutor = null;
+      return;
+    }
+    fillExecutor =
+        new ThreadPoolExecutor(
+            properties.getFillThreads(),
+            properties.getFillThreads(),
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(properties.getFillQueueCapacity()),
+            new CustomizableThreadFactory("disk-cache-fill-"));
+    loadExistingBlocks();
+  }
+
+  private static String sha1(String value) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(UTF_8));
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 is apparently not supported on this platform.", e);
+    }
+  }
+
+  long getBlockSize() {
+    return blockSize;
+  }
+
+  private Path getBlockDirectory(String blockKey) {
+    return directory.resolve(blockKey.substring(0, 2));
+  }
+
+  private Path getBlockPath(String blockKey) {
+    return getBlockDirectory(blockKey).resolve(blockKey + BLOCK_SUFFIX);
+  }
+
+  double getHitRatio() {
+    double total = hits.count() + misses.count();
+    return total > 0 ? hits.count() / total : 0;
+  }
+
+  /**
+   * @return the number of bytes currently used by cached blocks
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * @return true if resources should be read through this cache
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Register blocks left over by a previous run, oldest first. */
+  private void loadExistingBlocks() {
+    List<Path> existing = new ArrayList<>();
+    try {
+      Files.createDirectories(directory);
+      try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(directory)) {
+        for (Path prefix : prefixes) {
+          if (!Files.isDirectory(prefix)) {
+            continue;
+          }
+          try (DirectoryStream<Path> files = Files.newDirectoryStream(prefix)) {
+            for (Path file : files) {
+              String name = String.valueOf(file.getFileName());
+              if (name.endsWith(TEMP_SUFFIX)) {
+                Files.deleteIfExists(file);
+              } else if (name.endsWith(BLOCK_SUFFIX)) {
+                existing.add(file);
+              }
+            }
+          }
+        }
+      }
+      existing.sort(
+          Comparator.comparing(
+              file -> {
+                try {
+                  return Files.getLastModifiedTime(file).toMillis();
+                } catch (IOException e) {
+                  return 0L;
+                }
+              }));
+      for (Path file : existing) {
+        String name = String.valueOf(file.getFileName());
+        String blockKey = name.substring(0, name.length() - BLOCK_SUFFIX.length());
+        register(blockKey, Files.readAttributes(file, BasicFileAttributes.class).size());
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Can not load disk cache from {}: {}", directory, e.getMessage());
+    }
+    LOGGER.info("Disk cache at {} holds {} blocks ({} bytes)", directory, blocks.size(), getSize());
+  }
+
+  /**
+   * @param blockKey the key of a block
+   * @return the local copy of the block or null if it is not cached
+   */
+  Path lookup(String blockKey) {
+    boolean cached;
+    synchronized (this) {
+      cached = blocks.get(blockKey) != null;
+    }
+    if (cached) {
+      hits.increment();
+      return getBlockPath(blockKey);
+    }
+    misses.increment();
+    return null;
+  }
+
+  /** The given block was read from the origin, copy it to the cache if it was read often enough. */
+  void recordMiss(String blockKey, StreamingResource origin, long blockStart, long blockLength) {
+    synchronized (this) {
+      if (readCounts.merge(blockKey, 1, Integer::sum) < minHits) {
+        return;
+      }
+    }
+    scheduleFill(blockKey, origin, blockStart, blockLength);
+  }
+
+  private boolean scheduleFill(
+      String blockKey, StreamingResource origin, long blockStart, long blockLength) {
+    synchronized (this) {
+      if (pendingFills.contains(blockKey) || blocks.containsKey(blockKey)) {
+        return false;
+      }
+      pendingFills.add(blockKey);
+    }
+    try {
+      fillExecutor.execute(() -> fill(blockKey, origin, blockStart, blockLength));
+      return true;
+    } catch (RejectedExecutionException e) {
+      LOGGER.debug("Disk cache fill queue is full, skipping block {}", blockKey);
+      synchronized (this) {
+        pendingFills.remove(blockKey);
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Copy the blocks covering the given byte range to the cache, regardless of how often they were
+   * read.
+   *
+   * @param resource the resource
+   * @param start offset of the first byte to be cached
+   * @param length number of bytes to be cached
+   * @return the number of blocks scheduled for copying
+   */
+  public int prefetch(StreamingResource resource, long start, long length) {
+    if (!enabled || length <= 0) {
+      return 0;
+    }
+    StreamingResource origin = unwrap(resource);
+    String resourceKey = getResourceKey(origin);
+    long end = Math.min(start + length, origin.getSizeInBytes());
+    int scheduled = 0;
+    for (long blockIndex = start / blockSize; blockIndex * blockSize < end; blockIndex++) {
+      long blockStart = blockIndex * blockSize;
+      long blockLength = Math.min(blockSize, origin.getSizeInBytes() - blockStart);
+      if (scheduleFill(getBlockKey(resourceKey, blockIndex), origin, blockStart, blockLength)) {
+        scheduled++;
+      }
+    }
+    return scheduled;
+  }
+
+  /**
+   * Protect the cached blocks of the given resource from eviction.
+   *
+   * @param resource the resource
+   * @param until end of the protection
+   */
+  public void pin(StreamingResource resource, Instant until) {
+    if (enabled) {
+      pins.merge(getResourceKey(unwrap(resource)), until, (a, b) -> a.isAfter(b) ? a : b);
+    }
+  }
+
+  private boolean isPinned(String blockKey, Instant now) {
+    if (pins.isEmpty()) {
+      return false;
+    }
+    String resourceKey = blockKey.substring(0, blockKey.lastIndexOf('-'));
+    Instant until = pins.get(resourceKey);
+    if (until == null) {
+      return false;
+    }
+    if (until.isBefore(now)) {
+      pins.remove(resourceKey, until);
+      return false;
+    }
+    return true;
+  }
+
+  private StreamingResource unwrap(StreamingResource resource) {
+    return resource instanceof DiskCachedResource
+        ? ((DiskCachedResource) resource).getOrigin()
+        : resource;
+  }
+
+  /**
+   * @param resourceKey the key of a resource version
+   * @param blockIndex the index of the block inside of the resource
+   * @return the key of the block
+   */
+  static String getBlockKey(String resourceKey, long blockIndex) {
+    return resourceKey + "-" + blockIndex;
+  }
+
+  /**
+   * @param resource the resource
+   * @return the key identifying the given version of the resource
+   */
+  String getResourceKey(StreamingResource resource) {
+    String key =
+        resource.getLocation()
+            + "|"
+            + resource.getSizeInBytes()
+            + "|"
+            + resource.getLastModified().toEpochSecond(ZoneOffset.UTC);
+    String fingerprint = resource.getFingerprint();
+    return sha1(fingerprint != null ? key + "|" + fingerprint : key);
+  }
+
+  private void fill(String blockKey, StreamingResource origin, long blockStart, long blockLength) {
+    Path block = getBlockPath(blockKey);
+    Path temp = getBlockDirectory(blockKey).resolve(blockKey + TEMP_SUFFIX);
+    try {
+      Files.createDirectories(getBlockDirectory(blockKey));
+      long copied;
+      try (InputStream input = origin.getInputStream(blockStart, blockLength);
+          OutputStream output = Files.newOutputStream(temp)) {
+        copied = copy(input, output, blockLength);
+      }
+      if (copied != blockLength) {
+        throw new IOException("Expected " + blockLength + " bytes but got " + copied);
+      }
+      try {
+        Files.move(temp, block, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, block, StandardCopyOption.REPLACE_EXISTING);
+      }
+      fillBytes.increment(copied);
+      register(blockKey, copied);
+    } catch (Exception e) {
+      LOGGER.warn("Can not cache block of {}: {}", origin.getLocation(), e.getMessage());
+      try {
+        Files.deleteIfExists(temp);
+      } catch (IOException ignore) {
+        // nothing left to clean up
+      }
+    } finally {
+      synchronized (this) {
+        pendingFills.remove(blockKey);
+      }
+    }
+  }
+
+  private long copy(InputStream input, OutputStream output, long length) throws IOException {
+    byte[] buffer = new byte[64 * 1024];
+    long copied = 0;
+    int read;
+    while (copied < length
+        && (read = input.read(buffer, 0, (int) Math.min(buffer.length, length - copied))) > 0) {
+      output.write(buffer, 0, read);
+      copied += read;
+    }
+    return copied;
+  }
+
+  private void register(String blockKey, long blockLength) {
+    List<String> evicted = new ArrayList<>();
+    synchronized (this) {
+      Long previous = blocks.put(blockKey, blockLength);
+      size += blockLength - (previous != null ? previous : 0);
+      readCounts.remove(blockKey);
+      Instant now = Instant.now();
+      Iterator<Map.Entry<String, Long>> eldest = blocks.entrySet().iterator();
+      while (size > maxSize && eldest.hasNext()) {
+        Map.Entry<String, Long> entry = eldest.next();
+        if (isPinned(entry.getKey(), now)) {
+          continue;
+        }
+        size -= entry.getValue();
+        evicted.add(entry.getKey());
+        eldest.remove();
+      }
+    }
+    for (String key : evicted) {
+      try {
+        // readers holding the file open can still finish reading
+        Files.deleteIfExists(getBlockPath(key));
+      } catch (IOException e) {
+        LOGGER.warn("Can not evict cached block {}: {}", key, e.getMessage());
+      }
+    }
+  }
+
+  /** Stop filling the cache, blocks being copied right now are dropped. */
+  @PreDestroy
+  public void shutdown() {
+    if (fillExecutor != null) {
+      fillExecutor.shutdownNow();
+    }
+  }
+
+  /**
+   * @param resource the resource to be read through this cache
+   * @return the resource reading its blocks from the cache where possible
+   */
+  public StreamingResource wrap(StreamingResource resource) {
+    if (!enabled || resource.getSizeInBytes() <= 0) {
+      return resource;
+    }
+    return new DiskCachedResource(this, resource);
+  }
+}
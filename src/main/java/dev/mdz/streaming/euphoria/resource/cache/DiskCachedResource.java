@@ -0,0 +1,180 @@
+package dev.mdz.streaming.euphoria.resource.cache;
+
+import de.digitalcollections.model.exception.ResourceIOException;
+import de.digitalcollections.model.exception.ResourceNotFoundException;
+import dev.mdz.streaming.euphoria.resource.FileChannelInputStream;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+/** A resource whose blocks are read from the {@link DiskCache} where possible. */
+class DiskCachedResource implements StreamingResource {
+
+  private final DiskCache cache;
+  private final StreamingResource origin;
+  private final String resourceKey;
+
+  DiskCachedResource(DiskCache cache, StreamingResource origin) {
+    this.cache = cache;
+    this.origin = origin;
+    this.resourceKey = cache.getResourceKey(origin);
+  }
+
+  StreamingResource getOrigin() {
+    return origin;
+  }
+
+  @Override
+  public String getFilename() {
+    return origin.getFilename();
+  }
+
+  @Override
+  public String getLocation() {
+    return origin.getLocation();
+  }
+
+  @Override
+  public LocalDateTime getLastModified() {
+    return origin.getLastModified();
+  }
+
+  @Override
+  public long getSizeInBytes() {
+    return origin.getSizeInBytes();
+  }
+
+  @Override
+  public String getFingerprint() {
+    return origin.getFingerprint();
+  }
+
+  @Override
+  public InputStream getInputStream(long position) {
+    return new BlockInputStream(position, origin.getSizeInBytes());
+  }
+
+  @Override
+  public InputStream getInputStream(long position, long length) {
+    return new BlockInputStream(position, Math.min(position + length, origin.getSizeInBytes()));
+  }
+
+  /**
+   * Switches between local block copies and the origin at block boundaries. The origin stream is
+   * kept open across consecutive uncached blocks, it covers the remainder of the requested range.
+   */
+  private class BlockInputStream extends InputStream {
+
+    private long currentBlock = -1;
+    private final long end;
+    private InputStream local;
+    private long position;
+    private InputStream remote;
+    private long remotePosition;
+
+    BlockInputStream(long position, long end) {
+      this.position = position;
+      this.end = end;
+    }
+
+    @Override
+    public void close() throws IOException {
+      closeLocal();
+      if (remote != null) {
+        remote.close();
+        remote = null;
+      }
+    }
+
+    private void closeLocal() throws IOException {
+      if (local != null) {
+        local.close();
+        local = null;
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      long size = origin.getSizeInBytes();
+      if (len == 0) {
+        return 0;
+      }
+      if (position >= end) {
+        return -1;
+      }
+      long blockSize = cache.getBlockSize();
+      long blockIndex = position / blockSize;
+      long blockStart = blockIndex * blockSize;
+      long blockEnd = Math.min(blockStart + blockSize, size);
+
+      if (blockIndex != currentBlock) {
+        // entering a new block: use the local copy if there is one
+        currentBlock = blockIndex;
+        closeLocal();
+        String blockKey = DiskCache.getBlockKey(resourceKey, blockIndex);
+        local = openLocal(blockKey, position - blockStart, blockEnd - blockStart);
+        if (local == null) {
+          cache.recordMiss(blockKey, origin, blockStart, blockEnd - blockStart);
+        }
+      }
+
+      int toRead = (int) Math.min(len, Math.min(blockEnd, end) - position);
+      int read;
+      if (local != null) {
+        read = local.read(b, off, toRead);
+        if (read < 0) {
+          throw new IOException("Cached block of " + origin.getLocation() + " is truncated");
+        }
+      } else {
+        read = readRemote(b, off, toRead);
+      }
+      position += read;
+      return read;
+    }
+
+    private InputStream openLocal(String blockKey, long start, long end) throws IOException {
+      Path block = cache.lookup(blockKey);
+      if (block == null) {
+        return null;
+      }
+      try {
+        return new FileChannelInputStream(
+            FileChannel.open(block, StandardOpenOption.READ), start, end);
+      } catch (NoSuchFileException e) {
+        // evicted in the meantime
+        return null;
+      }
+    }
+
+    private int readRemote(byte[] b, int off, int len) throws IOException {
+      if (remote == null || remotePosition != position) {
+        if (remote != null) {
+          remote.close();
+        }
+        try {
+          remote = origin.getInputStream(position, end - position);
+        } catch (ResourceNotFoundException e) {
+          throw new ResourceIOException(e);
+        }
+        remotePosition = position;
+      }
+      int read = remote.read(b, off, len);
+      if (read < 0) {
+        throw new IOException("Unexpected end of " + origin.getLocation());
+      }
+      remotePosition += read;
+      return read;
+    }
+  }
+}
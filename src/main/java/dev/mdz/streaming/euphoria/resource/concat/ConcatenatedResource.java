@@ -0,0 +1,203 @@
+package dev.mdz.streaming.euphoria.resource.concat;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import de.digitalcollections.model.exception.ResourceIOException;
+import de.digitalcollections.model.exception.ResourceNotFoundException;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A virtual resource made of an ordered list of parts, served as one continuous content.
+ *
+ * <p>Its size is the sum of the sizes of the parts, its modification time the latest one of the
+ * parts. The fingerprint covers location, size and modification time of every part, so the ETag
+ * changes whenever any part does. Nothing is copied: a read at an arbitrary position opens the part
+ * containing that position at the corresponding offset and continues with the following parts.
+ */
+public class ConcatenatedResource implements StreamingResource {
+
+  private final String fingerprint;
+  private final LocalDateTime lastModified;
+  private final String location;
+
+  /** Offset of every part within the concatenated content, plus the total size at the end. */
+  private final long[] offsets;
+
+  private final List<StreamingResource> parts;
+
+  /**
+   * @param location the location of the virtual resource
+   * @param parts the parts in their order, at least one
+   */
+  @SuppressFBWarnings(
+      value = "CT_CONSTRUCTOR_THROW",
+      justification = "The exception is only thrown if SHA-1 is not supported")
+  public ConcatenatedResource(String location, List<StreamingResource> parts) {
+    this.location = location;
+    this.parts = List.copyOf(parts);
+    this.offsets = new long[parts.size() + 1];
+    LocalDateTime latest = null;
+    StringBuilder versions = new StringBuilder();
+    for (int i = 0; i < parts.size(); i++) {
+      StreamingResource part = parts.get(i);
+      offsets[i + 1] = offsets[i] + part.getSizeInBytes();
+      if (latest == null || part.getLastModified().isAfter(latest)) {
+        latest = part.getLastModified();
+      }
+      versions
+          .append(part.getLocation())
+          .append('|')
+          .append(part.getSizeInBytes())
+          .append('|')
+          .append(part.getLastModified())
+          .append('\n');
+    }
+    this.lastModified = latest;
+    this.fingerprint = hash(versions.toString());
+  }
+
+  private static String hash(String value) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(UTF_8));
+      StringBuilder hex = new StringBuilder(16);
+      for (int i = 0; i < 8; i++) {
+        hex.append(String.format("%02x", digest[i]));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 is apparently not supported on this platform.", e);
+    }
+  }
+
+  /** The filename of the first part, it determines content type and disposition. */
+  @Override
+  public String getFilename() {
+    return parts.get(0).getFilename();
+  }
+
+  @Override
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  @Override
+  public InputStream getInputStream(long position)
+      throws ResourceIOException, ResourceNotFoundException {
+    return new ConcatenatedInputStream(position);
+  }
+
+  @Override
+  public LocalDateTime getLastModified() {
+    return lastModified;
+  }
+
+  @Override
+  public String getLocation() {
+    return location;
+  }
+
+  @Override
+  public long getSizeInBytes() {
+    return offsets[parts.size()];
+  }
+
+  /** Reads the parts one after the other, starting with the part containing the position. */
+  private final class ConcatenatedInputStream extends InputStream {
+
+    private InputStream current;
+    private int part;
+    private long position;
+
+    ConcatenatedInputStream(long position) throws ResourceIOException, ResourceNotFoundException {
+      this.position = position;
+      if (position >= getSizeInBytes()) {
+        this.part = parts.size();
+        return;
+      }
+      // the part whose offset is the last one not after the position
+      int index = Arrays.binarySearch(offsets, 0, parts.size(), position);
+      this.part = index >= 0 ? index : -index - 2;
+      this.current = parts.get(part).getInputStream(position - offsets[part]);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (current != null) {
+        current.close();
+        current = null;
+      }
+      part = parts.size();
+    }
+
+    /**
+     * Continues with the next part.
+     *
+     * @return false if there is no next part
+     */
+    private boolean nextPart() throws IOException {
+      if (current != null) {
+        current.close();
+        current = null;
+      }
+      // skip empty parts
+      do {
+        part++;
+      } while (part < parts.size() && offsets[part] == offsets[part + 1]);
+      if (part >= parts.size()) {
+        return false;
+      }
+      position = offsets[part];
+      try {
+        current = parts.get(part).getInputStream(0);
+      } catch (ResourceNotFoundException e) {
+        throw new IOException(e);
+      }
+      return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      int read = read(single, 0, 1);
+      return read == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      while (part < parts.size()) {
+        long remaining = offsets[part + 1] - position;
+        if (remaining > 0) {
+          int read = current.read(b, off, (int) Math.min(len, remaining));
+          if (read > 0) {
+            position += read;
+            return read;
+          }
+          if (read == -1) {
+            throw new IOException(
+                "Part "
+                    + parts.get(part).getLocation()
+                    + " of "
+                    + location
+                    + " ended "
+                    + remaining
+                    + " bytes early");
+          }
+        } else if (!nextPart()) {
+          break;
+        }
+      }
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package dev.mdz.streaming.euphoria.resource.concat;
+
+import de.digitalcollections.commons.file.business.api.FileResourceService;
+import de.digitalcollections.model.exception.ResourceIOException;
+import de.digitalcollections.model.exception.ResourceNotFoundException;
+import dev.mdz.streaming.euphoria.resource.FileStreamingResource;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import dev.mdz.streaming.euphoria.resource.StreamingResourceProvider;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves virtual resources concatenating several files, e.g. <code>
+ * concat:tape42_side_a.mp3,tape42_side_b.mp3</code>.
+ *
+ * <p>Every part is given as identifier and extension and resolved through the {@link
+ * FileResourceService}, i.e. by the same <code>resourceRepository</code> patterns as any other
+ * resource. The resource does not exist if any of its parts doesn't.
+ */
+@Component
+public class ConcatenatedResourceProvider implements StreamingResourceProvider {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConcatenatedResourceProvider.class);
+  private static final String SCHEME_CONCAT = "concat:";
+
+  @Autowired FileResourceService fileResourceService;
+
+  @Override
+  public boolean supports(String uri) {
+    return uri.startsWith(SCHEME_CONCAT);
+  }
+
+  @Override
+  public StreamingResource resolve(String uri) throws ResourceIOException {
+    List<StreamingResource> parts = new ArrayList<>();
+    for (String part : uri.substring(SCHEME_CONCAT.length()).split(",")) {
+      String name = part.trim();
+      int dot = name.lastIndexOf('.');
+      if (dot <= 0 || dot == name.length() - 1) {
+        throw new ResourceIOException(
+            "Part " + name + " of " + uri + " is not given as <id>.<extension>");
+      }
+      try {
+        parts.add(
+            new FileStreamingResource(
+                fileResourceService.find(name.substring(0, dot), name.substring(dot + 1)),
+                fileResourceService));
+      } catch (ResourceIOException | ResourceNotFoundException e) {
+        // the file resource service doesn't tell missing and unreadable files apart
+        LOGGER.warn("Part {} of {} not found: {}", name, uri, e.getMessage());
+        return null;
+      }
+    }
+    return new ConcatenatedResource(uri, parts);
+  }
+}
@@ -0,0 +1,58 @@
+package dev.mdz.streaming.euphoria.resource.http;
+
+/**
+ * Stops requests to an origin server after a number of consecutive failures.
+ *
+ * <p>While open, requests are rejected without contacting the server. After the open duration a
+ * single trial request is let through: if it succeeds, the breaker closes again, if it fails, the
+ * breaker stays open for another period.
+ */
+class CircuitBreaker {
+
+  private int failures;
+  private final int failureThreshold;
+  private final long openDurationMillis;
+  private long openUntil;
+  private boolean trialRunning;
+
+  CircuitBreaker(int failureThreshold, long openDurationMillis) {
+    this.failureThreshold = failureThreshold;
+    this.openDurationMillis = openDurationMillis;
+  }
+
+  /**
+   * @return true if a request may be sent to the server
+   */
+  synchronized boolean allowRequest() {
+    if (failures < failureThreshold) {
+      return true;
+    }
+    if (System.currentTimeMillis() < openUntil || trialRunning) {
+      return false;
+    }
+    trialRunning = true;
+    return true;
+  }
+
+  synchronized boolean isOpen() {
+    return failures >= failureThreshold;
+  }
+
+  /** The request was cancelled locally, i.e. tells nothing about the server. */
+  synchronized void recordCancelled() {
+    trialRunning = false;
+  }
+
+  synchronized void recordFailure() {
+    failures++;
+    trialRunning = false;
+    if (failures >= failureThreshold) {
+      openUntil = System.currentTimeMillis() + openDurationMillis;
+    }
+  }
+
+  synchronized void recordSuccess() {
+    failures = 0;
+    trialRunning = false;
+  }
+}
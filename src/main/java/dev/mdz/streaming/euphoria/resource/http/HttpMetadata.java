@@ -0,0 +1,45 @@
+package dev.mdz.streaming.euphoria.resource.http;
+
+import java.time.LocalDateTime;
+
+/** The metadata of a resource on an origin server, as returned by a HEAD request. */
+class HttpMetadata {
+
+  private final String eTag;
+  private final LocalDateTime lastModified;
+  private final long size;
+  private volatile long verifiedAt;
+
+  HttpMetadata(String eTag, LocalDateTime lastModified, long size, long verifiedAt) {
+    this.eTag = eTag;
+    this.lastModified = lastModified;
+    this.size = size;
+    this.verifiedAt = verifiedAt;
+  }
+
+  /**
+   * @return the ETag header of the origin (incl. quotes and weak prefix), or null
+   */
+  String getETag() {
+    return eTag;
+  }
+
+  LocalDateTime getLastModified() {
+    return lastModified;
+  }
+
+  long getSize() {
+    return size;
+  }
+
+  /**
+   * @return the time (epoch millis) the metadata was last confirmed by the origin
+   */
+  long getVerifiedAt() {
+    return verifiedAt;
+  }
+
+  void setVerifiedAt(long verifiedAt) {
+    this.verifiedAt = verifiedAt;
+  }
+}
@@ -0,0 +1,165 @@
+package dev.mdz.streaming.euphoria.resource.http;
+
+import de.digitalcollections.model.exception.ResourceIOException;
+import de.digitalcollections.model.exception.ResourceNotFoundException;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.OptionalLong;
+
+/** A resource on an HTTP(S) origin server, read with range requests. */
+class HttpResource implements StreamingResource {
+
+  private final HttpMetadata metadata;
+  private final HttpResourceProvider provider;
+  private final URI uri;
+
+  HttpResource(HttpResourceProvider provider, URI uri, HttpMetadata metadata) {
+    this.metadata = metadata;
+    this.provider = provider;
+    this.uri = uri;
+  }
+
+  private static void closeQuietly(InputStream input) {
+    try {
+      input.close();
+    } catch (IOException ignore) {
+      // nothing to be read anyway
+    }
+  }
+
+  /**
+   * @return the total length of the resource from the <code>Content-Range</code> header
+   */
+  private static OptionalLong getTotalLength(HttpResponse<?> response) {
+    String contentRange = response.headers().firstValue("Content-Range").orElse("");
+    int slash = contentRange.lastIndexOf('/');
+    try {
+      return slash < 0 || contentRange.endsWith("*")
+          ? OptionalLong.empty()
+          : OptionalLong.of(Long.parseLong(contentRange.substring(slash + 1).trim()));
+    } catch (NumberFormatException e) {
+      return OptionalLong.empty();
+    }
+  }
+
+  private ResourceIOException changed() {
+    provider.invalidate(uri, metadata);
+    return new ResourceIOException(uri + " changed at the origin, cached metadata dropped");
+  }
+
+  /** Compares ETag and total length of a response with the metadata, as far as both are known. */
+  private boolean isChanged(HttpResponse<?> response, OptionalLong totalLength) {
+    String eTag = metadata.getETag();
+    String responseETag = response.headers().firstValue("ETag").orElse(null);
+    if (eTag != null && responseETag != null && !eTag.equals(responseETag)) {
+      return true;
+    }
+    long size = metadata.getSize();
+    return size >= 0 && totalLength.isPresent() && totalLength.getAsLong() != size;
+  }
+
+  @Override
+  public String getFilename() {
+    String path = uri.getPath();
+    return path == null ? "" : path.substring(path.lastIndexOf('/') + 1);
+  }
+
+  /** The ETag of the origin, as the same uri may serve different content with same size. */
+  @Override
+  public String getFingerprint() {
+    String eTag = metadata.getETag();
+    if (eTag == null) {
+      return null;
+    }
+    String fingerprint = eTag.replaceFirst("^W/", "").replaceAll("[^A-Za-z0-9_-]", "");
+    return fingerprint.isEmpty() ? null : fingerprint;
+  }
+
+  @Override
+  public String getLocation() {
+    return uri.toString();
+  }
+
+  @Override
+  public LocalDateTime getLastModified() {
+    return metadata.getLastModified();
+  }
+
+  @Override
+  public long getSizeInBytes() {
+    return metadata.getSize();
+  }
+
+  @Override
+  public InputStream getInputStream(long position)
+      throws ResourceIOException, ResourceNotFoundException {
+    return getInputStream(position, -1);
+  }
+
+  /**
+   * Requests only the given range from the origin, if the length is known (positive). The range is
+   * conditional on the (strong) ETag of the metadata, so a changed resource is detected.
+   */
+  @Override
+  public InputStream getInputStream(long position, long length)
+      throws ResourceIOException, ResourceNotFoundException {
+    long size = metadata.getSize();
+    if (size >= 0 && position >= size || length == 0) {
+      return InputStream.nullInputStream();
+    }
+    HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(provider.getReadTimeout());
+    boolean ranged = length > 0 || position > 0;
+    if (length > 0) {
+      request.header("Range", "bytes=" + position + "-" + (position + length - 1));
+    } else if (position > 0) {
+      request.header("Range", "bytes=" + position + "-");
+    }
+    String eTag = metadata.getETag();
+    if (ranged && eTag != null && !eTag.startsWith("W/")) {
+      // a changed resource is sent completely (status 200) instead of the range
+      request.header("If-Range", eTag);
+    }
+    HttpResponse<InputStream> response =
+        provider.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+    InputStream body = response.body();
+    switch (response.statusCode()) {
+      case 200:
+        // the origin ignored the range or the resource changed
+        if (isChanged(response, response.headers().firstValueAsLong("Content-Length"))) {
+          closeQuietly(body);
+          throw changed();
+        }
+        // skipping to the position reads the body, so it is watched for stalls as well
+        OriginInputStream watched = provider.watch(body, length);
+        try {
+          watched.discard(position);
+        } catch (IOException e) {
+          closeQuietly(watched);
+          throw new ResourceIOException(e);
+        }
+        return watched;
+      case 206:
+        if (isChanged(response, getTotalLength(response))) {
+          closeQuietly(body);
+          throw changed();
+        }
+        return provider.watch(body, length);
+      case 404:
+      case 410:
+        closeQuietly(body);
+        throw new ResourceNotFoundException(uri + " does not exist (anymore)");
+      case 416:
+        closeQuietly(body);
+        return InputStream.nullInputStream();
+      default:
+        closeQuietly(body);
+        throw new ResourceIOException(
+            "Origin responded to GET " + uri + " with status " + response.statusCode());
+    }
+  }
+}
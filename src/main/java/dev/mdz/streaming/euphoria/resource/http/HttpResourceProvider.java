@@ -0,0 +1,272 @@
+package dev.mdz.streaming.euphoria.resource.http;
+
+import de.digitalcollections.model.exception.ResourceIOException;
+import dev.mdz.streaming.euphoria.config.HttpOriginProperties;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import dev.mdz.streaming.euphoria.resource.StreamingResourceProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves resources on HTTP(S) origin servers, e.g. <code>https://objects.example.org/$1.mp4
+ * </code>.
+ *
+ * <p>All requests share one client, i.e. one pool of keep-alive connections. The metadata (size,
+ * modification time, ETag) of each resource is fetched with a HEAD request, cached (least recently
+ * used first out) and revalidated with a conditional request after {@link
+ * HttpOriginProperties#getMetadataTtl()}. Content is requested with a <code>Range</code> header for
+ * exactly the bytes to be served, conditional on the cached ETag (<code>If-Range</code>): if the
+ * resource changed at the origin, the cached metadata is dropped and the read fails instead of
+ * serving other content under the old size. Each origin server has its own {@link CircuitBreaker},
+ * so an unavailable server fails requests fast instead of tying up request threads until the
+ * timeouts. Reads of response bodies blocked for longer than the read timeout are aborted by a
+ * watchdog.
+ */
+@Component
+public class HttpResourceProvider implements StreamingResourceProvider {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HttpResourceProvider.class);
+  private static final String SCHEME_HTTP = "http:";
+  private static final String SCHEME_HTTPS = "https:";
+
+  private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+  private final HttpClient client;
+  private final int failureThreshold;
+  private final Map<URI, HttpMetadata> metadata;
+  private final long metadataTtlMillis;
+  private final Counter metadataCached;
+  private final Counter metadataFetched;
+  private final Counter metadataRevalidated;
+  private final long openDurationMillis;
+  private final Set<OriginInputStream> openStreams = ConcurrentHashMap.newKeySet();
+  private final Duration readTimeout;
+  private final Counter rejected;
+  private final ScheduledExecutorService watchdog;
+
+  public HttpResourceProvider(HttpOriginProperties properties, MeterRegistry meterRegistry) {
+    this.client =
+        HttpClient.newBuilder()
+            .connectTimeout(properties.getConnectTimeout())
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    this.failureThreshold = properties.getFailureThreshold();
+    this.metadataTtlMillis = properties.getMetadataTtl().toMillis();
+    this.openDurationMillis = properties.getOpenDuration().toMillis();
+    this.readTimeout = properties.getReadTimeout();
+    int maxCachedMetadata = properties.getMaxCachedMetadata();
+    this.metadata =
+        new LinkedHashMap<>(1024, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<URI, HttpMetadata> eldest) {
+            return size() > maxCachedMetadata;
+          }
+        };
+
+    metadataCached = meterRegistry.counter("euphoria.http.metadata", "result", "cached");
+    metadataFetched = meterRegistry.counter("euphoria.http.metadata", "result", "fetched");
+    metadataRevalidated = meterRegistry.counter("euphoria.http.metadata", "result", "revalidated");
+    rejected =
+        Counter.builder("euphoria.http.rejected")
+            .description("Requests not sent because the circuit breaker of the origin is open")
+            .register(meterRegistry);
+
+    long timeoutNanos = readTimeout.toNanos();
+    long checkIntervalMillis = Math.max(10, Math.min(1000, readTimeout.toMillis() / 4));
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("http-watchdog-");
+    threadFactory.setDaemon(true);
+    this.watchdog = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    watchdog.scheduleWithFixedDelay(
+        () -> {
+          long now = System.nanoTime();
+          for (OriginInputStream stream : openStreams) {
+            if (stream.expire(now, timeoutNanos)) {
+              LOGGER.warn("Read from origin blocked for more than {}, aborted", readTimeout);
+            }
+          }
+        },
+        checkIntervalMillis,
+        checkIntervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  private static LocalDateTime parseLastModified(HttpHeaders headers) {
+    String value = headers.firstValue("Last-Modified").orElse(null);
+    if (value != null) {
+      try {
+        return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+            .withZoneSameInstant(ZoneOffset.UTC)
+            .toLocalDateTime();
+      } catch (DateTimeParseException e) {
+        LOGGER.debug("Ignoring invalid Last-Modified header {}", value);
+      }
+    }
+    return LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC);
+  }
+
+  @Override
+  public boolean supports(String uri) {
+    return uri.startsWith(SCHEME_HTTP) || uri.startsWith(SCHEME_HTTPS);
+  }
+
+  @Override
+  public StreamingResource resolve(String uri) throws ResourceIOException {
+    URI target;
+    try {
+      target = URI.create(uri);
+    } catch (IllegalArgumentException e) {
+      throw new ResourceIOException("Invalid uri " + uri, e);
+    }
+
+    HttpMetadata cached;
+    synchronized (metadata) {
+      cached = metadata.get(target);
+    }
+    long now = System.currentTimeMillis();
+    if (cached != null && now - cached.getVerifiedAt() < metadataTtlMillis) {
+      metadataCached.increment();
+      return new HttpResource(this, target, cached);
+    }
+
+    HttpRequest.Builder request =
+        HttpRequest.newBuilder(target)
+            .method("HEAD", HttpRequest.BodyPublishers.noBody())
+            .timeout(readTimeout);
+    if (cached != null && cached.getETag() != null) {
+      request.header("If-None-Match", cached.getETag());
+    }
+    HttpResponse<Void> response = send(request.build(), HttpResponse.BodyHandlers.discarding());
+    int status = response.statusCode();
+    if (status == 304 && cached != null) {
+      metadataRevalidated.increment();
+      cached.setVerifiedAt(now);
+      return new HttpResource(this, target, cached);
+    }
+    if (status == 404 || status == 410) {
+      synchronized (metadata) {
+        metadata.remove(target);
+      }
+      return null;
+    }
+    if (status < 200 || status >= 300) {
+      throw new ResourceIOException("Origin responded to HEAD " + uri + " with status " + status);
+    }
+
+    HttpHeaders headers = response.headers();
+    HttpMetadata fetched =
+        new HttpMetadata(
+            headers.firstValue("ETag").orElse(null),
+            parseLastModified(headers),
+            headers.firstValueAsLong("Content-Length").orElse(-1),
+            now);
+    metadataFetched.increment();
+    synchronized (metadata) {
+      metadata.put(target, fetched);
+    }
+    return new HttpResource(this, target, fetched);
+  }
+
+  /**
+   * Send a request through the circuit breaker of its origin server. Server errors (status 5xx) are
+   * raised as exceptions, all other responses are returned.
+   */
+  <T> HttpResponse<T> send(HttpRequest request, BodyHandler<T> bodyHandler)
+      throws ResourceIOException {
+    URI uri = request.uri();
+    String origin = uri.getScheme() + "://" + uri.getRawAuthority();
+    CircuitBreaker breaker =
+        breakers.computeIfAbsent(
+            origin, key -> new CircuitBreaker(failureThreshold, openDurationMillis));
+    if (!breaker.allowRequest()) {
+      rejected.increment();
+      throw new ResourceIOException("Circuit breaker of origin " + origin + " is open");
+    }
+
+    HttpResponse<T> response;
+    try {
+      response = client.send(request, bodyHandler);
+    } catch (IOException e) {
+      breaker.recordFailure();
+      throw new ResourceIOException(request.method() + " " + uri + " failed: " + e, e);
+    } catch (InterruptedException e) {
+      breaker.recordCancelled();
+      Thread.currentThread().interrupt();
+      throw new ResourceIOException(request.method() + " " + uri + " was interrupted", e);
+    }
+    if (response.statusCode() >= 500) {
+      breaker.recordFailure();
+      if (response.body() instanceof InputStream body) {
+        try {
+          body.close();
+        } catch (IOException ignore) {
+          // the server error is the relevant one
+        }
+      }
+      throw new ResourceIOException(
+          "Origin responded to "
+              + request.method()
+              + " "
+              + uri
+              + " with status "
+              + response.statusCode());
+    }
+    breaker.recordSuccess();
+    return response;
+  }
+
+  Duration getReadTimeout() {
+    return readTimeout;
+  }
+
+  /** Drops the cached metadata of a resource that changed at the origin. */
+  void invalidate(URI uri, HttpMetadata changed) {
+    synchronized (metadata) {
+      metadata.remove(uri, changed);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    watchdog.shutdownNow();
+  }
+
+  /**
+   * @param body the body of an origin response
+   * @param limit the maximum number of bytes to read, negative for the whole body
+   * @return the body, limited and watched for stalled reads
+   */
+  OriginInputStream watch(InputStream body, long limit) {
+    return new OriginInputStream(body, limit, openStreams);
+  }
+
+  boolean isOpen(String origin) {
+    CircuitBreaker breaker = breakers.get(origin);
+    return breaker != null && breaker.isOpen();
+  }
+}
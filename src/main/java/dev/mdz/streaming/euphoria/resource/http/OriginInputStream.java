@@ -0,0 +1,118 @@
+package dev.mdz.streaming.euphoria.resource.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.Set;
+
+/**
+ * The body of an origin response, limited to the requested number of bytes. The body of the HTTP
+ * client has no read timeout, so every read is watched by the provider: if a read is blocked for
+ * longer than the read timeout, the body is closed and the read fails.
+ */
+final class OriginInputStream extends InputStream {
+
+  private final InputStream body;
+  private final Set<OriginInputStream> open;
+  private volatile long readingSince;
+  private long remaining;
+  private volatile boolean timedOut;
+
+  /**
+   * @param body the body of the response
+   * @param limit the maximum number of bytes to read, negative for the whole body
+   * @param open the streams watched for stalled reads, this stream is removed from it on close
+   */
+  OriginInputStream(InputStream body, long limit, Set<OriginInputStream> open) {
+    this.body = body;
+    this.remaining = limit;
+    this.open = open;
+    open.add(this);
+  }
+
+  @Override
+  public void close() throws IOException {
+    open.remove(this);
+    body.close();
+  }
+
+  /**
+   * Reads and discards the given number of bytes without counting them against the limit, e.g. the
+   * bytes before the requested range of an origin that sent the whole body.
+   */
+  void discard(long count) throws IOException {
+    byte[] buffer = new byte[(int) Math.min(count, 8192)];
+    while (count > 0) {
+      int read = readBody(buffer, 0, (int) Math.min(count, buffer.length));
+      if (read < 0) {
+        throw new EOFException("Body of the origin response ended before the requested range");
+      }
+      count -= read;
+    }
+  }
+
+  /**
+   * Closes the body, if a read is blocked since more than the given time.
+   *
+   * @return true if the body was closed
+   */
+  boolean expire(long now, long timeoutNanos) {
+    long since = readingSince;
+    if (since == 0 || now - since < timeoutNanos) {
+      return false;
+    }
+    timedOut = true;
+    try {
+      close();
+    } catch (IOException ignore) {
+      // the read fails anyway
+    }
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+    return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    if (remaining == 0) {
+      return -1;
+    }
+    if (length == 0) {
+      return 0;
+    }
+    int read = readBody(buffer, offset, remaining > 0 ? (int) Math.min(length, remaining) : length);
+    if (read > 0 && remaining > 0) {
+      remaining -= read;
+    }
+    return read;
+  }
+
+  private int readBody(byte[] buffer, int offset, int length) throws IOException {
+    int read;
+    readingSince = System.nanoTime();
+    try {
+      read = body.read(buffer, offset, length);
+    } catch (IOException e) {
+      if (timedOut) {
+        throw timeout();
+      }
+      throw e;
+    } finally {
+      readingSince = 0;
+    }
+    // closing the body ends a blocked read like a regular end of the body
+    if (timedOut) {
+      throw timeout();
+    }
+    return read;
+  }
+
+  private SocketTimeoutException timeout() {
+    return new SocketTimeoutException("Read from origin timed out");
+  }
+}
@@ -0,0 +1,81 @@
+package dev.mdz.streaming.euphoria.tracing;
+
+/**
+ * Durations of the phases of a single streaming request. Every call of {@link #mark(Phase)}
+ * attributes the time since the previous mark to the given phase, so phases that occur several
+ * times (e.g. one stream per range) are summed up.
+ *
+ * <p>A trace is used by a single request thread only. If tracing is disabled, the shared {@link
+ * #NOOP} trace is used, which records nothing.
+ */
+public final class RequestTrace {
+
+  /** The phases of a request in the order they occur. */
+  public enum Phase {
+    /** Resolving the identifier to a resource (or looking it up in the memory cache). */
+    RESOLVE,
+    /** Reading size and modification time of the resource. */
+    METADATA,
+    /** Checking the conditional and range headers and setting the response headers. */
+    HEADERS,
+    /** Opening the resource at the start of the (first) range. */
+    OPEN,
+    /** Reading the first buffer from the resource. */
+    FIRST_READ,
+    /** Copying the content to the client, including flushing and closing the response. */
+    TRANSFER
+  }
+
+  static final RequestTrace NOOP = new RequestTrace(false, null, null);
+
+  private final boolean enabled;
+  private final String extension;
+  private final String id;
+  private long last;
+  private final long[] nanos = new long[Phase.values().length];
+  private final long startedAt;
+  private final long startedNanos;
+
+  RequestTrace(boolean enabled, String id, String extension) {
+    this.enabled = enabled;
+    this.id = id;
+    this.extension = extension;
+    this.startedAt = enabled ? System.currentTimeMillis() : 0;
+    this.startedNanos = enabled ? System.nanoTime() : 0;
+    this.last = startedNanos;
+  }
+
+  String getExtension() {
+    return extension;
+  }
+
+  String getId() {
+    return id;
+  }
+
+  long getNanos(Phase phase) {
+    return nanos[phase.ordinal()];
+  }
+
+  long getStartedAt() {
+    return startedAt;
+  }
+
+  long getStartedNanos() {
+    return startedNanos;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Attributes the time since the previous mark (or the start) to the given phase. */
+  public void mark(Phase phase) {
+    if (!enabled) {
+      return;
+    }
+    long now = System.nanoTime();
+    nanos[phase.ordinal()] += now - last;
+    last = now;
+  }
+}
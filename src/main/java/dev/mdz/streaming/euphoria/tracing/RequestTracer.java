@@ -0,0 +1,125 @@
+package dev.mdz.streaming.euphoria.tracing;
+
+import dev.mdz.streaming.euphoria.config.TracingProperties;
+import dev.mdz.streaming.euphoria.tracing.RequestTrace.Phase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the phases of streaming requests as timers (<code>euphoria.request.phase</code>, tagged
+ * by phase) and keeps the most recent requests exceeding the slow threshold in a fixed size ring.
+ * The threshold applies to the latency until the content flows, the transfer itself depends on the
+ * size of the response and the client's bandwidth.
+ *
+ * <p>If tracing is disabled, {@link #start(String, String)} returns a shared trace that records
+ * nothing, so the only cost per request is a boolean check per phase.
+ */
+@Component
+public class RequestTracer {
+
+  private final boolean enabled;
+  private final Timer[] phaseTimers = new Timer[Phase.values().length];
+  private final AtomicReferenceArray<SlowRequest> slowRequests;
+  private final AtomicLong slowRequestCount = new AtomicLong();
+  private final long slowThresholdNanos;
+
+  public RequestTracer(TracingProperties properties, MeterRegistry meterRegistry) {
+    this.enabled = properties.isEnabled();
+    this.slowRequests = new AtomicReferenceArray<>(Math.max(1, properties.getSlowRequests()));
+    this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+    if (!enabled) {
+      return;
+    }
+    for (Phase phase : Phase.values()) {
+      phaseTimers[phase.ordinal()] =
+          Timer.builder("euphoria.request.phase")
+              .description("Duration of the phases of streaming requests")
+              .tag("phase", getName(phase))
+              .register(meterRegistry);
+    }
+  }
+
+  private static String getName(Phase phase) {
+    return phase.name().toLowerCase(Locale.ROOT).replace('_', '-');
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+  /**
+   * Records the phases of the finished request and captures it, if it exceeded the slow threshold.
+   *
+   * @param trace the trace of the request
+   * @param status the HTTP status of the response
+   */
+  public void finish(RequestTrace trace, int status) {
+    if (!trace.isEnabled()) {
+      return;
+    }
+    long total = System.nanoTime() - trace.getStartedNanos();
+    long latency = 0;
+    for (Phase phase : Phase.values()) {
+      long nanos = trace.getNanos(phase);
+      if (nanos > 0) {
+        phaseTimers[phase.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+      }
+      if (phase != Phase.TRANSFER) {
+        latency += nanos;
+      }
+    }
+    if (latency < slowThresholdNanos) {
+      return;
+    }
+
+    Map<String, Double> phases = new LinkedHashMap<>();
+    for (Phase phase : Phase.values()) {
+      phases.put(getName(phase), toMillis(trace.getNanos(phase)));
+    }
+    SlowRequest slowRequest =
+        new SlowRequest(
+            trace.getId(),
+            trace.getExtension(),
+            Instant.ofEpochMilli(trace.getStartedAt()),
+            status,
+            toMillis(total),
+            phases);
+    long index = slowRequestCount.getAndIncrement();
+    slowRequests.set((int) (index % slowRequests.length()), slowRequest);
+  }
+
+  /** Returns the captured slow requests, the most recent first. */
+  public List<SlowRequest> getSlowRequests() {
+    long count = slowRequestCount.get();
+    int capacity = slowRequests.length();
+    List<SlowRequest> result = new ArrayList<>();
+    for (long index = count - 1; index >= 0 && index >= count - capacity; index--) {
+      SlowRequest slowRequest = slowRequests.get((int) (index % capacity));
+      if (slowRequest != null) {
+        result.add(slowRequest);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Starts the trace of a request.
+   *
+   * @param id the id of the requested resource
+   * @param extension the (target) file extension of the requested resource
+   * @return a new trace or a shared trace recording nothing, if tracing is disabled
+   */
+  public RequestTrace start(String id, String extension) {
+    return enabled ? new RequestTrace(true, id, extension) : RequestTrace.NOOP;
+  }
+}
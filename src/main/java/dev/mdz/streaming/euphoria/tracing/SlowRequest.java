@@ -0,0 +1,56 @@
+package dev.mdz.streaming.euphoria.tracing;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+/** A request that took longer than the configured threshold, with the durations of its phases. */
+public class SlowRequest {
+
+  private final String extension;
+  private final String id;
+  private final Map<String, Double> phases;
+  private final Instant started;
+  private final int status;
+  private final double totalMillis;
+
+  SlowRequest(
+      String id,
+      String extension,
+      Instant started,
+      int status,
+      double totalMillis,
+      Map<String, Double> phases) {
+    this.id = id;
+    this.extension = extension;
+    this.started = started;
+    this.status = status;
+    this.totalMillis = totalMillis;
+    this.phases = Collections.unmodifiableMap(phases);
+  }
+
+  public String getExtension() {
+    return extension;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  /** Durations of the phases in milliseconds, in the order they occur. */
+  public Map<String, Double> getPhases() {
+    return phases;
+  }
+
+  public Instant getStarted() {
+    return started;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public double getTotalMillis() {
+    return totalMillis;
+  }
+}
@@ -0,0 +1,23 @@
+package dev.mdz.streaming.euphoria.tracing;
+
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint listing the most recent requests exceeding the slow threshold with the
+ * durations of their phases (<code>GET /monitoring/slowrequests</code>).
+ */
+@Component
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+
+  @Autowired RequestTracer requestTracer;
+
+  @ReadOperation
+  public List<SlowRequest> slowRequests() {
+    return requestTracer.getSlowRequests();
+  }
+}
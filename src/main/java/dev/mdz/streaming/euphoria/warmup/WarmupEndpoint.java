@@ -0,0 +1,63 @@
+package dev.mdz.streaming.euphoria.warmup;
+
+import dev.mdz.streaming.euphoria.config.WarmupProperties;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Actuator endpoint to warm up resources ahead of scheduled high demand, e.g.
+ *
+ * <pre>
+ * POST /monitoring/warmup
+ * {"ids": "lecture42,lecture43", "extensions": "mp4", "pinMinutes": 180}
+ * </pre>
+ *
+ * <p>Progress is reported by <code>GET /monitoring/warmup</code> (all recent jobs) and <code>
+ * GET /monitoring/warmup/{jobId}</code>.
+ */
+@Component
+@Endpoint(id = "warmup")
+public class WarmupEndpoint {
+
+  @Autowired WarmupProperties warmupProperties;
+
+  @Autowired WarmupService warmupService;
+
+  @ReadOperation
+  public List<WarmupJob> jobs() {
+    return warmupService.getJobs();
+  }
+
+  @ReadOperation
+  public WarmupJob job(@Selector String jobId) {
+    return warmupService.getJob(jobId);
+  }
+
+  /**
+   * @param ids the comma separated resource identifiers
+   * @param extensions the comma separated (target) file extensions to warm up for every id
+   * @param pinMinutes how long to protect the resources from cache eviction, 0 for no pinning,
+   *     <code>euphoria.warmup.pin-duration</code> if missing
+   * @return the started job
+   */
+  @WriteOperation
+  public WarmupJob warmup(String ids, String extensions, @Nullable Integer pinMinutes) {
+    Duration pinDuration =
+        pinMinutes == null
+            ? warmupProperties.getPinDuration()
+            : pinMinutes > 0 ? Duration.ofMinutes(pinMinutes) : null;
+    return warmupService.start(split(ids), split(extensions), pinDuration);
+  }
+
+  private List<String> split(String values) {
+    return List.of(StringUtils.tokenizeToStringArray(values, ","));
+  }
+}
@@ -0,0 +1,105 @@
+package dev.mdz.streaming.euphoria.warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Progress of a single warm-up request. */
+public class WarmupJob {
+
+  private static final int MAX_REPORTED_FAILURES = 100;
+
+  private final AtomicInteger completed = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+  private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+  private volatile Instant finished;
+  private final String id;
+  private final Instant pinnedUntil;
+  private final AtomicInteger processed = new AtomicInteger();
+  private final Instant started;
+  private final int total;
+
+  WarmupJob(String id, int total, Instant pinnedUntil) {
+    this.id = id;
+    this.total = total;
+    this.pinnedUntil = pinnedUntil;
+    this.started = Instant.now();
+    if (total == 0) {
+      finished = started;
+    }
+  }
+
+  /**
+   * @return true if this was the last resource of the job
+   */
+  boolean complete() {
+    completed.incrementAndGet();
+    return processed();
+  }
+
+  /**
+   * @return true if this was the last resource of the job
+   */
+  boolean fail(String resource, String reason) {
+    failed.incrementAndGet();
+    if (failures.size() < MAX_REPORTED_FAILURES) {
+      failures.add(resource + ": " + reason);
+    }
+    return processed();
+  }
+
+  private boolean processed() {
+    if (processed.incrementAndGet() == total) {
+      finished = Instant.now();
+      return true;
+    }
+    return false;
+  }
+
+  public int getCompleted() {
+    return completed.get();
+  }
+
+  public int getFailed() {
+    return failed.get();
+  }
+
+  public List<String> getFailures() {
+    synchronized (failures) {
+      return new ArrayList<>(failures);
+    }
+  }
+
+  public Instant getFinished() {
+    return finished;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public Instant getPinnedUntil() {
+    return pinnedUntil;
+  }
+
+  /**
+   * @return the share of processed resources in percent
+   */
+  public int getProgress() {
+    return total > 0 ? processed.get() * 100 / total : 100;
+  }
+
+  public Instant getStarted() {
+    return started;
+  }
+
+  public int getTotal() {
+    return total;
+  }
+
+  public boolean isRunning() {
+    return finished == null;
+  }
+}
@@ -0,0 +1,165 @@
+package dev.mdz.streaming.euphoria.warmup;
+
+import dev.mdz.streaming.euphoria.config.WarmupProperties;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import dev.mdz.streaming.euphoria.resource.StreamingResourceService;
+import dev.mdz.streaming.euphoria.resource.cache.DiskCache;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Warms up resources ahead of scheduled high demand: resolves them (filling the in-process caches
+ * of the resolvers) and reads their head and tail blocks, either into the disk cache (if enabled)
+ * or at least into the page cache of the operating system.
+ */
+@Service
+public class WarmupService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WarmupService.class);
+
+  @Autowired DiskCache diskCache;
+
+  @Autowired StreamingResourceService streamingResourceService;
+
+  private final ExecutorService executor;
+  private final long headSize;
+  private final Map<String, WarmupJob> jobs;
+  private final long tailSize;
+
+  public WarmupService(WarmupProperties properties) {
+    this.headSize = properties.getHeadSize().toBytes();
+    this.tailSize = properties.getTailSize().toBytes();
+    this.executor =
+        Executors.newFixedThreadPool(
+            properties.getThreads(), new CustomizableThreadFactory("warmup-"));
+    int maxJobs = properties.getMaxJobs();
+    this.jobs =
+        new LinkedHashMap<>() {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, WarmupJob> eldest) {
+            return size() > maxJobs;
+          }
+        };
+  }
+
+  /**
+   * @param jobId the id of a warm-up job
+   * @return the job or null if it is unknown
+   */
+  public WarmupJob getJob(String jobId) {
+    synchronized (jobs) {
+      return jobs.get(jobId);
+    }
+  }
+
+  /**
+   * @return the most recent warm-up jobs, oldest first
+   */
+  public List<WarmupJob> getJobs() {
+    synchronized (jobs) {
+      return new ArrayList<>(jobs.values());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Start warming up every combination of the given ids and extensions.
+   *
+   * @param ids the resource identifiers
+   * @param extensions the (target) file extensions
+   * @param pinDuration how long to protect the resources from eviction, may be null
+   * @return the started job
+   */
+  public WarmupJob start(List<String> ids, List<String> extensions, Duration pinDuration) {
+    Instant pinnedUntil =
+        pinDuration != null && pinDuration.toMillis() > 0 ? Instant.now().plus(pinDuration) : null;
+    WarmupJob job =
+        new WarmupJob(
+            UUID.randomUUID().toString().substring(0, 8),
+            ids.size() * extensions.size(),
+            pinnedUntil);
+    synchronized (jobs) {
+      jobs.put(job.getId(), job);
+    }
+    LOGGER.info(
+        "Warm-up {} of {} resources started (pinned until {})",
+        job.getId(),
+        job.getTotal(),
+        pinnedUntil);
+    for (String id : ids) {
+      for (String extension : extensions) {
+        executor.execute(() -> warmup(job, id, extension, pinnedUntil));
+      }
+    }
+    return job;
+  }
+
+  private void warmup(WarmupJob job, String id, String extension, Instant pinnedUntil) {
+    String name = id + "." + extension;
+    boolean finished;
+    try {
+      StreamingResource resource = streamingResourceService.find(id, extension);
+      long size = resource.getSizeInBytes();
+      long tailStart = Math.max(0, size - tailSize);
+      if (diskCache.isEnabled()) {
+        // copying continues in the background of the disk cache
+        diskCache.prefetch(resource, 0, headSize);
+        diskCache.prefetch(resource, tailStart, size - tailStart);
+        if (pinnedUntil != null) {
+          diskCache.pin(resource, pinnedUntil);
+        }
+      } else {
+        read(resource, 0, Math.min(headSize, size));
+        // the tail may overlap the head, only read what has not been read yet
+        long remainingStart = Math.max(headSize, tailStart);
+        if (remainingStart < size) {
+          read(resource, remainingStart, size - remainingStart);
+        }
+      }
+      finished = job.complete();
+    } catch (Exception e) {
+      LOGGER.warn("Warm-up of {} failed: {}", name, e.getMessage());
+      finished = job.fail(name, String.valueOf(e.getMessage()));
+    }
+    if (finished) {
+      LOGGER.info(
+          "Warm-up {} finished: {} resources warmed up, {} failed",
+          job.getId(),
+          job.getCompleted(),
+          job.getFailed());
+    }
+  }
+
+  private void read(StreamingResource resource, long position, long length) throws Exception {
+    byte[] buffer = new byte[64 * 1024];
+    long remaining = length;
+    try (InputStream input = resource.getInputStream(position, length)) {
+      int read;
+      while (remaining > 0
+          && (read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining))) > 0) {
+        remaining -= read;
+      }
+    } catch (IOException e) {
+      throw new IOException("Can not read " + resource.getLocation(), e);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package dev.mdz.streaming.euphoria.workload;
+
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.apache.catalina.connector.ClientAbortException;
+
+/**
+ * The response as seen by a scheduled task. Once the client went away, the response is completed
+ * and recycled without waiting for the task, so the task must not touch it anymore: every write
+ * fails with a {@link ClientAbortException} then, without reaching the response. Writes and the
+ * abort hold the same lock, so the response is only completed between two writes: a write in
+ * progress is finished (usually failing fast, as the client is gone) before the response is
+ * recycled. A failed write aborts the response as well: the container reports the error to the
+ * async listeners, which complete the response, so the task must not complete it. Headers and
+ * status are set before the task is scheduled, the status is kept for reporting.
+ */
+final class AbortableResponse extends HttpServletResponseWrapper {
+
+  private volatile boolean aborted;
+  private boolean completed;
+  private final ReentrantLock lock = new ReentrantLock();
+  private ServletOutputStream outputStream;
+  private final int status;
+
+  AbortableResponse(HttpServletResponse response) {
+    super(response);
+    this.status = response.getStatus();
+  }
+
+  /**
+   * Marks the response as aborted, waits for a write in progress and completes the response before
+   * the next write can start.
+   *
+   * @param complete completes the response
+   */
+  void abort(Runnable complete) {
+    lock.lock();
+    try {
+      aborted = true;
+      if (!completed) {
+        completed = true;
+        complete.run();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Completes the response once the task is done, unless it was aborted.
+   *
+   * @param complete completes the response
+   */
+  void finish(Runnable complete) {
+    lock.lock();
+    try {
+      if (!aborted && !completed) {
+        completed = true;
+        complete.run();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  boolean isAborted() {
+    return aborted;
+  }
+
+  /** Runs the given write on the response, unless the response was aborted. */
+  private void guarded(Write write) throws IOException {
+    lock.lock();
+    try {
+      if (aborted) {
+        throw new ClientAbortException("Client went away, response is not written anymore");
+      }
+      write.run();
+    } catch (IOException e) {
+      // the container reports the failure to the listeners, which complete the response
+      aborted = true;
+      throw e;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void flushBuffer() throws IOException {
+    guarded(super::flushBuffer);
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() throws IOException {
+    guarded(
+        () -> {
+          if (outputStream == null) {
+            outputStream = new AbortableOutputStream(super.getOutputStream());
+          }
+        });
+    return outputStream;
+  }
+
+  @Override
+  public int getStatus() {
+    return status;
+  }
+
+  private interface Write {
+    void run() throws IOException;
+  }
+
+  private final class AbortableOutputStream extends ServletOutputStream {
+
+    private final ServletOutputStream output;
+
+    AbortableOutputStream(ServletOutputStream output) {
+      this.output = output;
+    }
+
+    @Override
+    public void close() throws IOException {
+      lock.lock();
+      try {
+        if (!aborted) {
+          output.close();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      guarded(output::flush);
+    }
+
+    @Override
+    public boolean isReady() {
+      lock.lock();
+      try {
+        return !aborted && output.isReady();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      lock.lock();
+      try {
+        if (!aborted) {
+          output.setWriteListener(writeListener);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      guarded(() -> output.write(b));
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+      guarded(() -> output.write(buffer, offset, length));
+    }
+  }
+}
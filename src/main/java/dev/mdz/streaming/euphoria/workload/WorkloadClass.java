@@ -0,0 +1,18 @@
+package dev.mdz.streaming.euphoria.workload;
+
+import java.util.Locale;
+
+/** Classes of responses, every class is written by its own executor. */
+public enum WorkloadClass {
+  /** Short responses, e.g. PDF pages or XML files, finished within milliseconds. */
+  DOCUMENT,
+  /** Long responses, e.g. audio/video streams running for minutes or hours. */
+  STREAM;
+
+  /**
+   * @return the name used in metrics and thread names
+   */
+  public String getName() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,235 @@
+package dev.mdz.streaming.euphoria.workload;
+
+import dev.mdz.streaming.euphoria.config.WorkloadProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes responses on a bounded executor per {@link WorkloadClass}, so long media streams can't
+ * starve short document requests.
+ *
+ * <p>The request thread of the container only resolves the resource and sets the headers, then the
+ * request is switched to async mode and the content is written by a thread of the executor of its
+ * class. Every executor has a fixed number of threads and a bounded number of waiting responses,
+ * further requests are rejected before switching to async mode. If the client goes away, the
+ * response is completed as soon as no write is in progress; a waiting task is skipped then and a
+ * running task fails on its next write, see {@link AbortableResponse}.
+ *
+ * <p>Metrics per class (tag <code>class</code>): <code>euphoria.workload.queued</code> and <code>
+ * euphoria.workload.active</code> (gauges), <code>euphoria.workload.wait</code> (time in the
+ * queue), <code>euphoria.workload.duration</code> (time writing) and <code>
+ * euphoria.workload.rejected</code>.
+ */
+@Component
+public class WorkloadScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WorkloadScheduler.class);
+
+  private final List<String> documentMimeTypes;
+  private final long documentMaxLength;
+  private final Map<WorkloadClass, Timer> durations = new EnumMap<>(WorkloadClass.class);
+  private final boolean enabled;
+  private final Map<WorkloadClass, ThreadPoolExecutor> executors =
+      new EnumMap<>(WorkloadClass.class);
+
+  /** Number of running and waiting responses per class, limited to threads plus queue capacity. */
+  private final Map<WorkloadClass, AtomicInteger> admitted = new EnumMap<>(WorkloadClass.class);
+
+  private final Map<WorkloadClass, Integer> limits = new EnumMap<>(WorkloadClass.class);
+  private final Map<WorkloadClass, Counter> rejections = new EnumMap<>(WorkloadClass.class);
+  private final long shortLength;
+  private final Map<WorkloadClass, Timer> waits = new EnumMap<>(WorkloadClass.class);
+
+  public WorkloadScheduler(WorkloadProperties properties, MeterRegistry meterRegistry) {
+    this.enabled = properties.isEnabled();
+    this.documentMimeTypes = properties.getDocumentMimeTypes();
+    this.documentMaxLength = properties.getDocumentMaxLength().toBytes();
+    this.shortLength = properties.getShortLength().toBytes();
+    if (!enabled) {
+      return;
+    }
+    for (WorkloadClass workloadClass : WorkloadClass.values()) {
+      WorkloadProperties.Pool pool =
+          workloadClass == WorkloadClass.DOCUMENT
+              ? properties.getDocuments()
+              : properties.getStreams();
+      // the queue is bounded by the admission limit
+      ThreadPoolExecutor executor =
+          new ThreadPoolExecutor(
+              pool.getThreads(),
+              pool.getThreads(),
+              0,
+              TimeUnit.MILLISECONDS,
+              new LinkedBlockingQueue<>(),
+              new CustomizableThreadFactory("workload-" + workloadClass.getName() + "-"));
+      executors.put(workloadClass, executor);
+      admitted.put(workloadClass, new AtomicInteger());
+      limits.put(workloadClass, pool.getThreads() + pool.getQueueCapacity());
+
+      String name = workloadClass.getName();
+      Gauge.builder("euphoria.workload.queued", executor, e -> e.getQueue().size())
+          .tag("class", name)
+          .register(meterRegistry);
+      Gauge.builder("euphoria.workload.active", executor, ThreadPoolExecutor::getActiveCount)
+          .tag("class", name)
+          .register(meterRegistry);
+      waits.put(
+          workloadClass,
+          Timer.builder("euphoria.workload.wait").tag("class", name).register(meterRegistry));
+      durations.put(
+          workloadClass,
+          Timer.builder("euphoria.workload.duration").tag("class", name).register(meterRegistry));
+      rejections.put(
+          workloadClass,
+          Counter.builder("euphoria.workload.rejected").tag("class", name).register(meterRegistry));
+    }
+  }
+
+  /**
+   * Classifies a response.
+   *
+   * @param contentType the MIME type of the content
+   * @param length the number of bytes to be written
+   * @return the workload class of the response
+   */
+  public WorkloadClass classify(String contentType, long length) {
+    if (length <= shortLength) {
+      return WorkloadClass.DOCUMENT;
+    }
+    if (length <= documentMaxLength) {
+      int slash = contentType.indexOf('/');
+      String mainType = slash < 0 ? contentType : contentType.substring(0, slash) + "/*";
+      if (documentMimeTypes.contains(contentType) || documentMimeTypes.contains(mainType)) {
+        return WorkloadClass.DOCUMENT;
+      }
+    }
+    return WorkloadClass.STREAM;
+  }
+
+  /**
+   * Switches the request to async mode and writes the response on the executor of the given class.
+   * The async context is completed when the task is done or as soon as the client went away.
+   *
+   * @param workloadClass the class of the response
+   * @param request the request
+   * @param response the response, with status and headers already set
+   * @param task writes the response
+   * @return false if the limit of the class is reached, the request is not switched to async mode
+   *     then
+   */
+  public boolean execute(
+      WorkloadClass workloadClass,
+      HttpServletRequest request,
+      HttpServletResponse response,
+      Task task) {
+    AtomicInteger count = admitted.get(workloadClass);
+    if (count.incrementAndGet() > limits.get(workloadClass)) {
+      count.decrementAndGet();
+      rejections.get(workloadClass).increment();
+      return false;
+    }
+    AsyncContext asyncContext;
+    try {
+      asyncContext = request.startAsync();
+    } catch (RuntimeException e) {
+      count.decrementAndGet();
+      throw e;
+    }
+    // long streams must not be cut off by the async timeout of the container
+    asyncContext.setTimeout(0);
+    AbortableResponse abortableResponse = new AbortableResponse(response);
+    asyncContext.addListener(
+        new AsyncListener() {
+          @Override
+          public void onComplete(AsyncEvent event) {
+            // nothing to do
+          }
+
+          @Override
+          public void onError(AsyncEvent event) {
+            // The client went away: complete instead of letting the container dispatch to the
+            // error page. The container thread waits for a write in progress only, not for the
+            // task, whose further writes fail without touching the recycled response.
+            abortableResponse.abort(asyncContext::complete);
+          }
+
+          @Override
+          public void onStartAsync(AsyncEvent event) {
+            // nothing to do
+          }
+
+          @Override
+          public void onTimeout(AsyncEvent event) {
+            // nothing to do, there is no timeout
+          }
+        });
+    long queuedAt = System.nanoTime();
+    try {
+      executors
+          .get(workloadClass)
+          .execute(
+              () -> {
+                long startedAt = System.nanoTime();
+                waits.get(workloadClass).record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                  if (!abortableResponse.isAborted()) {
+                    task.run(abortableResponse);
+                  }
+                } catch (Exception e) {
+                  // client aborts are handled by the task, anything else is a storage error
+                  LOGGER.warn("Error writing {} response", workloadClass.getName(), e);
+                } finally {
+                  durations
+                      .get(workloadClass)
+                      .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                  count.decrementAndGet();
+                  abortableResponse.finish(asyncContext::complete);
+                }
+              });
+    } catch (RejectedExecutionException e) {
+      // shutting down
+      count.decrementAndGet();
+      asyncContext.complete();
+    }
+    return true;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+  }
+
+  /** Writes a response. */
+  @FunctionalInterface
+  public interface Task {
+
+    /**
+     * @param response the response to write to, writes fail once the client went away
+     */
+    void run(HttpServletResponse response) throws Exception;
+  }
+}
@@ -3,7 +3,10 @@ package dev.mdz.streaming.euphoria;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import dev.mdz.streaming.euphoria.config.SpringConfigSecurity;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import org.assertj.core.api.InstanceOfAssertFactories;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,6 +49,50 @@ public class ApplicationTest {
     assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
   }
 
+  @Test
+  public void shouldReturnMetadataInRequestOrderWhenSendingBatchRequest() throws Exception {
+    List<Map<String, String>> body =
+        List.of(
+            Map.of("id", "unknown1", "extension", "mp4"),
+            Map.of("id", "unknown2", "extension", "mp3"));
+    @SuppressWarnings("rawtypes")
+    ResponseEntity<List> entity =
+        this.testRestTemplate.postForEntity(
+            "http://localhost:" + this.port + "/stream/metadata", body, List.class);
+
+    assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(entity.getBody())
+        .containsExactly(
+            Map.of("id", "unknown1", "extension", "mp4", "found", false),
+            Map.of("id", "unknown2", "extension", "mp3", "found", false));
+  }
+
+  @Test
+  public void shouldReturnErrorPerItemWhenSendingBatchRequestWithInvalidItems() throws Exception {
+    List<Map<String, String>> body =
+        Arrays.asList(
+            null,
+            Map.of("id", " ", "extension", "mp4"),
+            Map.of("id", "unknown1", "extension", "mp4"));
+    @SuppressWarnings("rawtypes")
+    ResponseEntity<List> entity =
+        this.testRestTemplate.postForEntity(
+            "http://localhost:" + this.port + "/stream/metadata", body, List.class);
+
+    assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(entity.getBody()).hasSize(3);
+    assertThat(entity.getBody().get(0))
+        .asInstanceOf(InstanceOfAssertFactories.MAP)
+        .containsEntry("found", false)
+        .containsEntry("error", "Missing id or extension");
+    assertThat(entity.getBody().get(1))
+        .asInstanceOf(InstanceOfAssertFactories.MAP)
+        .containsEntry("id", " ")
+        .containsEntry("error", "Missing id or extension");
+    assertThat(entity.getBody().get(2))
+        .isEqualTo(Map.of("id", "unknown1", "extension", "mp4", "found", false));
+  }
+
   @Test
   public void shouldReturn200WhenSendingRequestToManagementEndpoint() throws Exception {
     ResponseEntity<Map> entity =
@@ -77,4 +124,18 @@ public class ApplicationTest {
 
     assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
   }
+
+  @Test
+  public void shouldStartWarmupWhenSendingAuthorizedRequestToWarmupEndpoint() throws Exception {
+    Map<String, Object> body = Map.of("ids", "unknown", "extensions", "mp4,mp3");
+    @SuppressWarnings("rawtypes")
+    ResponseEntity<Map> entity =
+        this.testRestTemplate
+            .withBasicAuth(monitoringUsername, monitoringPassword)
+            .postForEntity(
+                "http://localhost:" + this.monitoringPort + "/monitoring/warmup", body, Map.class);
+
+    assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(entity.getBody()).containsEntry("total", 2);
+  }
 }
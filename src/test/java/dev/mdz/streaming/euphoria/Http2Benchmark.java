@@ -0,0 +1,150 @@
+package dev.mdz.streaming.euphoria;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.mdz.streaming.euphoria.config.SpringConfigSecurity;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.coyote.AbstractProtocol;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Compares HTTP/1.1 and HTTP/2 (h2c) for viewers fetching a resource as several parallel ranges,
+ * like download accelerators and some players do. Reports the peak number of server connections per
+ * viewer and the throughput.
+ *
+ * <p>Not run by default: <code>mvn test -Dtest=Http2Benchmark -Dbenchmark=true</code>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+    classes = {Application.class, SpringConfigSecurity.class},
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"management.server.port=0", "euphoria.http2.enabled=true"})
+public class Http2Benchmark {
+
+  private static final Path DIRECTORY;
+  private static final Logger LOGGER = LoggerFactory.getLogger(Http2Benchmark.class);
+  private static final int RANGES_PER_VIEWER = 4;
+  private static final int ROUNDS = 5;
+  private static final int SIZE = 16 * 1024 * 1024;
+  private static final int VIEWERS = 16;
+
+  static {
+    byte[] content = new byte[SIZE];
+    new Random(42).nextBytes(content);
+    try {
+      DIRECTORY = Files.createTempDirectory("euphoria-benchmark");
+      Files.write(DIRECTORY.resolve("movie.mp4"), content);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Autowired private ServletWebServerApplicationContext context;
+
+  @LocalServerPort private int port;
+
+  @DynamicPropertySource
+  static void resourceRepository(DynamicPropertyRegistry registry) {
+    registry.add("resourceRepository.resolved.patterns[0].pattern", () -> "^([^.]*?)$");
+    registry.add(
+        "resourceRepository.resolved.patterns[0].substitutions[0]",
+        () -> DIRECTORY.toUri() + "$1.mp4");
+  }
+
+  private long getConnectionCount() {
+    TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+    return ((AbstractProtocol<?>) webServer.getTomcat().getConnector().getProtocolHandler())
+        .getConnectionCount();
+  }
+
+  @Test
+  public void compareProtocols() throws Exception {
+    // warm up JIT and page cache
+    run(HttpClient.Version.HTTP_1_1);
+    run(HttpClient.Version.HTTP_2);
+
+    for (HttpClient.Version version :
+        List.of(HttpClient.Version.HTTP_1_1, HttpClient.Version.HTTP_2)) {
+      run(version);
+    }
+  }
+
+  private void run(HttpClient.Version version) throws Exception {
+    URI uri = URI.create("http://localhost:" + port + "/stream/movie/default.mp4");
+    long baseline = getConnectionCount();
+    List<HttpClient> viewers = new ArrayList<>();
+    for (int i = 0; i < VIEWERS; i++) {
+      HttpClient client = HttpClient.newBuilder().version(version).build();
+      // players request the metadata first, for HTTP/2 this also upgrades the connection
+      client.send(
+          HttpRequest.newBuilder(uri).method("HEAD", HttpRequest.BodyPublishers.noBody()).build(),
+          HttpResponse.BodyHandlers.discarding());
+      viewers.add(client);
+    }
+
+    AtomicLong peak = new AtomicLong(baseline);
+    ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+    sampler.scheduleAtFixedRate(
+        () -> peak.accumulateAndGet(getConnectionCount(), Math::max), 0, 2, TimeUnit.MILLISECONDS);
+
+    long rangeLength = SIZE / RANGES_PER_VIEWER;
+    long bytes = 0;
+    long start = System.nanoTime();
+    for (int round = 0; round < ROUNDS; round++) {
+      List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>();
+      for (HttpClient client : viewers) {
+        for (int range = 0; range < RANGES_PER_VIEWER; range++) {
+          long first = range * rangeLength;
+          responses.add(
+              client.sendAsync(
+                  HttpRequest.newBuilder(uri)
+                      .header("Range", "bytes=" + first + "-" + (first + rangeLength - 1))
+                      .build(),
+                  HttpResponse.BodyHandlers.ofByteArray()));
+        }
+      }
+      for (CompletableFuture<HttpResponse<byte[]>> response : responses) {
+        assertThat(response.join().statusCode()).isEqualTo(206);
+        bytes += response.join().body().length;
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    sampler.shutdownNow();
+
+    LOGGER.info(
+        "{}: {} viewers x {} ranges, {} connections per viewer, {} MB/s",
+        version,
+        VIEWERS,
+        RANGES_PER_VIEWER,
+        String.format("%.1f", (double) (peak.get() - baseline) / VIEWERS),
+        String.format("%.0f", bytes / 1024.0 / 1024.0 / (elapsed / 1e9)));
+  }
+}
@@ -0,0 +1,138 @@
+package dev.mdz.streaming.euphoria;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.mdz.streaming.euphoria.config.SpringConfigSecurity;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/** Range, multipart and HEAD requests over HTTP/2 (h2c). */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+    classes = {Application.class, SpringConfigSecurity.class},
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"management.server.port=0", "euphoria.http2.enabled=true"})
+public class Http2IntegrationTest {
+
+  private static final byte[] CONTENT = new byte[100_000];
+  private static final Path DIRECTORY;
+
+  static {
+    new Random(42).nextBytes(CONTENT);
+    try {
+      DIRECTORY = Files.createTempDirectory("euphoria-http2");
+      Files.write(DIRECTORY.resolve("talk.mp4"), CONTENT);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @LocalServerPort private int port;
+
+  private HttpClient client;
+
+  @DynamicPropertySource
+  static void resourceRepository(DynamicPropertyRegistry registry) {
+    registry.add("resourceRepository.resolved.patterns[0].pattern", () -> "^([^.]*?)$");
+    registry.add(
+        "resourceRepository.resolved.patterns[0].substitutions[0]",
+        () -> DIRECTORY.toUri() + "$1.mp4");
+  }
+
+  @BeforeEach
+  public void createClient() throws Exception {
+    client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+    // the first request upgrades the connection, all further requests are streams on it
+    send(HttpRequest.newBuilder(uri()).method("HEAD", HttpRequest.BodyPublishers.noBody()));
+  }
+
+  private URI uri() {
+    return URI.create("http://localhost:" + port + "/stream/talk/default.mp4");
+  }
+
+  private HttpResponse<byte[]> send(HttpRequest.Builder request) throws Exception {
+    HttpResponse<byte[]> response =
+        client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    assertThat(response.version()).isEqualTo(HttpClient.Version.HTTP_2);
+    return response;
+  }
+
+  @Test
+  public void shouldServeFullContent() throws Exception {
+    HttpResponse<byte[]> response = send(HttpRequest.newBuilder(uri()));
+
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.headers().firstValue("Content-Type")).hasValue("video/mp4");
+    assertThat(response.body()).isEqualTo(CONTENT);
+  }
+
+  @Test
+  public void shouldServeHeadWithoutContent() throws Exception {
+    HttpResponse<byte[]> response =
+        send(HttpRequest.newBuilder(uri()).method("HEAD", HttpRequest.BodyPublishers.noBody()));
+
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.headers().firstValueAsLong("Content-Length")).hasValue(CONTENT.length);
+    assertThat(response.headers().firstValue("Accept-Ranges")).hasValue("bytes");
+    assertThat(response.body()).isEmpty();
+  }
+
+  @Test
+  public void shouldServeSingleRange() throws Exception {
+    HttpResponse<byte[]> response =
+        send(HttpRequest.newBuilder(uri()).header("Range", "bytes=1000-1999"));
+
+    assertThat(response.statusCode()).isEqualTo(206);
+    assertThat(response.headers().firstValue("Content-Range")).hasValue("bytes 1000-1999/100000");
+    assertThat(response.body()).isEqualTo(Arrays.copyOfRange(CONTENT, 1000, 2000));
+  }
+
+  @Test
+  public void shouldServeMultipleRangesAsMultipart() throws Exception {
+    HttpResponse<byte[]> response =
+        send(HttpRequest.newBuilder(uri()).header("Range", "bytes=0-9,50000-50009"));
+
+    assertThat(response.statusCode()).isEqualTo(206);
+    assertThat(response.headers().firstValue("Content-Type"))
+        .hasValueSatisfying(type -> assertThat(type).startsWith("multipart/byteranges"));
+    String body = new String(response.body(), StandardCharsets.ISO_8859_1);
+    assertThat(body)
+        .contains("Content-Range: bytes 0-9/100000")
+        .contains("Content-Range: bytes 50000-50009/100000")
+        .contains(new String(CONTENT, 50000, 10, StandardCharsets.ISO_8859_1));
+  }
+
+  @Test
+  public void shouldServeParallelRanges() throws Exception {
+    CompletableFuture<HttpResponse<byte[]>> first =
+        client.sendAsync(
+            HttpRequest.newBuilder(uri()).header("Range", "bytes=0-49999").build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+    CompletableFuture<HttpResponse<byte[]>> second =
+        client.sendAsync(
+            HttpRequest.newBuilder(uri()).header("Range", "bytes=50000-").build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+    assertThat(first.join().version()).isEqualTo(HttpClient.Version.HTTP_2);
+    assertThat(first.join().body()).isEqualTo(Arrays.copyOfRange(CONTENT, 0, 50000));
+    assertThat(second.join().body()).isEqualTo(Arrays.copyOfRange(CONTENT, 50000, CONTENT.length));
+  }
+}
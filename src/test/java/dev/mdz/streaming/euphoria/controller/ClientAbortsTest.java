@@ -0,0 +1,38 @@
+package dev.mdz.streaming.euphoria.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import org.apache.catalina.connector.ClientAbortException;
+import org.apache.coyote.CloseNowException;
+import org.junit.jupiter.api.Test;
+
+public class ClientAbortsTest {
+
+  @Test
+  public void testIsClientAbort() {
+    assertThat(ClientAborts.isClientAbort(new ClientAbortException("Broken pipe"))).isTrue();
+    assertThat(ClientAborts.isClientAbort(new IOException(new CloseNowException("reset"))))
+        .isTrue();
+    assertThat(ClientAborts.isClientAbort(new IOException("Stale file handle"))).isFalse();
+  }
+
+  @Test
+  public void testRecord() {
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ClientAborts clientAborts = new ClientAborts(meterRegistry);
+
+    clientAborts.record("video/mp4", 1000, 200);
+    clientAborts.record("video/webm", 1000, 600);
+
+    DistributionSummary position =
+        meterRegistry.get("euphoria.aborts.position").tag("type", "video").summary();
+    assertThat(position.count()).isEqualTo(2);
+    assertThat(position.totalAmount()).isEqualTo(800);
+    assertThat(meterRegistry.get("euphoria.aborts.unsent").tag("type", "video").counter().count())
+        .isEqualTo(1200);
+  }
+}
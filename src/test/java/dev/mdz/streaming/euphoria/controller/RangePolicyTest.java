@@ -0,0 +1,38 @@
+package dev.mdz.streaming.euphoria.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.mdz.streaming.euphoria.config.RangeProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+public class RangePolicyTest {
+
+  @Test
+  public void testOpenEndedLimits() {
+    RangeProperties properties = new RangeProperties();
+    properties.getOpenEndedLimits().put("video/*", DataSize.ofMegabytes(8));
+    properties.getOpenEndedLimits().put("video/webm", DataSize.ofMegabytes(4));
+    RangePolicy policy = new RangePolicy(properties, new SimpleMeterRegistry());
+
+    assertThat(policy.getOpenEndedLimit("video/mp4")).isEqualTo(DataSize.ofMegabytes(8).toBytes());
+    assertThat(policy.getOpenEndedLimit("video/webm")).isEqualTo(DataSize.ofMegabytes(4).toBytes());
+    assertThat(policy.getOpenEndedLimit("application/pdf")).isEqualTo(-1);
+  }
+
+  @Test
+  public void testRecordTransfer() {
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    RangePolicy policy = new RangePolicy(new RangeProperties(), meterRegistry);
+
+    policy.recordTransfer("video/mp4", 1000, 200);
+    policy.recordTransfer("video/webm", 1000, 1000);
+
+    assertThat(meterRegistry.get("euphoria.ranges.served").tag("type", "video").counter().count())
+        .isEqualTo(2000);
+    assertThat(meterRegistry.get("euphoria.ranges.consumed").tag("type", "video").counter().count())
+        .isEqualTo(1200);
+  }
+}
@@ -0,0 +1,95 @@
+package dev.mdz.streaming.euphoria.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.mdz.streaming.euphoria.config.MemoryCacheProperties;
+import dev.mdz.streaming.euphoria.controller.ResponseCache.CachedResponse;
+import dev.mdz.streaming.euphoria.controller.StreamingController.ResourceInfo;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+public class ResponseCacheTest {
+
+  private MemoryCacheProperties properties;
+
+  @BeforeEach
+  public void setUp() {
+    properties = new MemoryCacheProperties();
+    properties.setEnabled(true);
+    properties.setMaxFileSize(DataSize.ofBytes(1000));
+    properties.setMaxSize(DataSize.ofBytes(2500));
+  }
+
+  @Test
+  public void testEviction() {
+    ResponseCache cache = new ResponseCache(properties, new SimpleMeterRegistry());
+    assertThat(cache.isCacheable(1000)).isTrue();
+    assertThat(cache.isCacheable(1001)).isFalse();
+
+    cache.put("a.pdf", response("a", 1000, LocalDateTime.of(2025, 1, 1, 0, 0)));
+    cache.put("b.pdf", response("b", 1000, LocalDateTime.of(2025, 1, 1, 0, 0)));
+    assertThat(cache.get("a.pdf")).isNotNull();
+    cache.put("c.pdf", response("c", 1000, LocalDateTime.of(2025, 1, 1, 0, 0)));
+
+    assertThat(cache.get("a.pdf")).isNotNull();
+    assertThat(cache.get("b.pdf")).isNull();
+    assertThat(cache.get("c.pdf")).isNotNull();
+    assertThat(cache.getSize()).isEqualTo(2000);
+  }
+
+  @Test
+  public void testRevalidation() {
+    properties.setRevalidateAfter(Duration.ZERO);
+    ResponseCache cache = new ResponseCache(properties, new SimpleMeterRegistry());
+    LocalDateTime lastModified = LocalDateTime.of(2025, 1, 1, 0, 0);
+    CachedResponse cached = response("a", 100, lastModified);
+    cache.put("a.pdf", cached);
+
+    assertThat(cache.get("a.pdf")).isNull();
+    assertThat(cache.revalidate("a.pdf", response("a", 100, lastModified).resourceInfo))
+        .isSameAs(cached);
+    assertThat(cache.revalidate("a.pdf", response("a", 100, lastModified.plusDays(1)).resourceInfo))
+        .isNull();
+    assertThat(cache.getEntryCount()).isZero();
+    assertThat(cache.getSize()).isZero();
+  }
+
+  private CachedResponse response(String id, int length, LocalDateTime lastModified) {
+    byte[] content = new byte[length];
+    StreamingResource resource =
+        new StreamingResource() {
+          @Override
+          public String getFilename() {
+            return id + ".pdf";
+          }
+
+          @Override
+          public String getLocation() {
+            return "memory:" + id;
+          }
+
+          @Override
+          public LocalDateTime getLastModified() {
+            return lastModified;
+          }
+
+          @Override
+          public long getSizeInBytes() {
+            return length;
+          }
+
+          @Override
+          public InputStream getInputStream(long position) {
+            return new ByteArrayInputStream(content, (int) position, length - (int) position);
+          }
+        };
+    return new CachedResponse(new ResourceInfo(id, resource, null), content);
+  }
+}
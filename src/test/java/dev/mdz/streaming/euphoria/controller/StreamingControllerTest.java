@@ -2,11 +2,92 @@ package dev.mdz.streaming.euphoria.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import dev.mdz.streaming.euphoria.Application;
+import dev.mdz.streaming.euphoria.config.SpringConfigSecurity;
 import dev.mdz.streaming.euphoria.controller.StreamingController.Range;
+import dev.mdz.streaming.euphoria.controller.StreamingController.ResourceInfo;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+    classes = {Application.class, SpringConfigSecurity.class},
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"management.server.port=0", "euphoria.ranges.open-ended-limits[video/*]=1KB"})
 public class StreamingControllerTest {
 
+  private static final byte[] CONTENT = new byte[100_000];
+  private static final Path DIRECTORY;
+
+  static {
+    new Random(42).nextBytes(CONTENT);
+    try {
+      DIRECTORY = Files.createTempDirectory("euphoria-ranges");
+      Files.write(DIRECTORY.resolve("talk.mp4"), CONTENT);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private final HttpClient client = HttpClient.newHttpClient();
+
+  @LocalServerPort private int port;
+
+  @DynamicPropertySource
+  static void resourceRepository(DynamicPropertyRegistry registry) {
+    registry.add("resourceRepository.resolved.patterns[0].pattern", () -> "^([^.]*?)$");
+    registry.add(
+        "resourceRepository.resolved.patterns[0].substitutions[0]",
+        () -> DIRECTORY.toUri() + "$1.mp4");
+  }
+
+  private HttpResponse<byte[]> getRange(String range) throws Exception {
+    URI uri = URI.create("http://localhost:" + port + "/stream/talk/default.mp4");
+    return client.send(
+        HttpRequest.newBuilder(uri).header("Range", range).build(),
+        HttpResponse.BodyHandlers.ofByteArray());
+  }
+
+  private void assertRange(HttpResponse<byte[]> response, int start, int end) {
+    assertThat(response.statusCode()).isEqualTo(206);
+    assertThat(response.headers().firstValue("Content-Length"))
+        .hasValue(String.valueOf(end - start + 1));
+    assertThat(response.headers().firstValue("Content-Range"))
+        .hasValue("bytes " + start + "-" + end + "/" + CONTENT.length);
+    assertThat(response.body()).isEqualTo(Arrays.copyOfRange(CONTENT, start, end + 1));
+  }
+
+  @Test
+  public void testOpenEndedRangeIsCapped() throws Exception {
+    assertRange(getRange("bytes=1000-"), 1000, 2023);
+    // the cap does not extend the range beyond the end of the resource
+    assertRange(getRange("bytes=99500-"), 99500, 99999);
+  }
+
+  @Test
+  public void testSuffixAndClosedRangesAreNotCapped() throws Exception {
+    assertRange(getRange("bytes=-5000"), 95000, 99999);
+    assertRange(getRange("bytes=1000-9999"), 1000, 9999);
+  }
+
   @Test
   public void testRange() {
     Range simpleRange = new Range(1, 10);
@@ -16,4 +97,46 @@ public class StreamingControllerTest {
 
     assertThat(actualLength).isEqualTo(expectedLength);
   }
+
+  @Test
+  public void testResourceInfo() {
+    StreamingResource resource =
+        new StreamingResource() {
+          @Override
+          public String getFilename() {
+            return "talk.mp4";
+          }
+
+          @Override
+          public String getLocation() {
+            return "file:/data/talk.mp4";
+          }
+
+          @Override
+          public LocalDateTime getLastModified() {
+            return LocalDateTime.of(2025, 1, 1, 12, 0, 30, 500_000_000);
+          }
+
+          @Override
+          public long getSizeInBytes() {
+            return 1000;
+          }
+
+          @Override
+          public InputStream getInputStream(long position) {
+            return InputStream.nullInputStream();
+          }
+        };
+
+    ResourceInfo resourceInfo = new ResourceInfo("talk", resource, null);
+    assertThat(resourceInfo.lastModifiedHeader).isEqualTo("Wed, 01 Jan 2025 12:00:30 GMT");
+    assertThat(resourceInfo.lastModified).isEqualTo(1735732830000L);
+    assertThat(resourceInfo.eTag).isEqualTo("talk.mp4_1000_1735732830");
+    assertThat(resourceInfo.gzipETag).isEqualTo("talk.mp4_1000_1735732830-gz");
+    assertThat(resourceInfo.contentType).isEqualTo("video/mp4");
+
+    ResourceInfo hashed = new ResourceInfo("talk", resource, "0123abcd");
+    assertThat(hashed.eTag).isEqualTo("\"0123abcd\"");
+    assertThat(hashed.gzipETag).isEqualTo("\"0123abcd-gz\"");
+  }
 }
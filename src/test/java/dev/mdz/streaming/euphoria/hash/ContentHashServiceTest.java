@@ -0,0 +1,140 @@
+package dev.mdz.streaming.euphoria.hash;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.mdz.streaming.euphoria.config.ContentHashProperties;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ContentHashServiceTest {
+
+  private static final String HELLO_SHA256 =
+      "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+  private static final LocalDateTime MODIFIED = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+  @TempDir Path directory;
+
+  private volatile CountDownLatch hashing = new CountDownLatch(0);
+  private final AtomicInteger reads = new AtomicInteger();
+
+  private ContentHashService service() {
+    ContentHashProperties properties = new ContentHashProperties();
+    properties.setEnabled(true);
+    properties.setDirectory(directory);
+    return new ContentHashService(properties, new SimpleMeterRegistry());
+  }
+
+  private StreamingResource resource(String location, byte[] content, LocalDateTime modified) {
+    return new StreamingResource() {
+      @Override
+      public String getFilename() {
+        return location.substring(location.lastIndexOf('/') + 1);
+      }
+
+      @Override
+      public String getLocation() {
+        return location;
+      }
+
+      @Override
+      public LocalDateTime getLastModified() {
+        return modified;
+      }
+
+      @Override
+      public long getSizeInBytes() {
+        return content.length;
+      }
+
+      @Override
+      public InputStream getInputStream(long position) {
+        reads.incrementAndGet();
+        try {
+          hashing.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return new ByteArrayInputStream(content, (int) position, content.length);
+      }
+    };
+  }
+
+  private void awaitHash(ContentHashService service, StreamingResource resource)
+      throws InterruptedException {
+    for (int i = 0; i < 100 && service.getHash(resource) == null; i++) {
+      Thread.sleep(50);
+    }
+  }
+
+  @Test
+  public void testHashComputedInBackgroundAndPersisted() throws Exception {
+    byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+    StreamingResource resource = resource("file:/data/hello.txt", content, MODIFIED);
+    ContentHashService service = service();
+
+    assertThat(service.getHash(resource)).isNull();
+    awaitHash(service, resource);
+    assertThat(service.getHash(resource)).isEqualTo(HELLO_SHA256);
+    service.shutdown();
+
+    // a new instance (i.e. after a restart) reads the persisted hash
+    ContentHashService restarted = service();
+    assertThat(restarted.getHash(resource)).isEqualTo(HELLO_SHA256);
+    assertThat(reads).hasValue(1);
+
+    // a renamed copy gets the same hash, a changed version is hashed again
+    StreamingResource renamed = resource("file:/data/renamed.txt", content, MODIFIED);
+    awaitHash(restarted, renamed);
+    assertThat(restarted.getHash(renamed)).isEqualTo(HELLO_SHA256);
+    StreamingResource changed =
+        resource(
+            "file:/data/hello.txt",
+            "HELLO".getBytes(StandardCharsets.UTF_8),
+            MODIFIED.plusSeconds(1));
+    awaitHash(restarted, changed);
+    assertThat(restarted.getHash(changed)).isNotEqualTo(HELLO_SHA256);
+    restarted.shutdown();
+  }
+
+  @Test
+  public void testDiskProbedOncePerPendingHash() throws Exception {
+    hashing = new CountDownLatch(1);
+    StreamingResource resource =
+        resource("file:/data/hello.txt", "hello".getBytes(StandardCharsets.UTF_8), MODIFIED);
+    ContentHashService service = service();
+    assertThat(service.getHash(resource)).isNull();
+
+    // while the hash is computed, requests don't look for it on disk again
+    String resourceKey = ContentHashService.getResourceKey(resource);
+    Path file = directory.resolve(resourceKey.substring(0, 2)).resolve(resourceKey + ".sha256");
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, "0".repeat(64));
+    assertThat(service.getHash(resource)).isNull();
+
+    hashing.countDown();
+    awaitHash(service, resource);
+    assertThat(service.getHash(resource)).isEqualTo(HELLO_SHA256);
+    service.shutdown();
+  }
+
+  @Test
+  public void testDisabled() {
+    ContentHashService service =
+        new ContentHashService(new ContentHashProperties(), new SimpleMeterRegistry());
+    StreamingResource resource =
+        resource("file:/data/hello.txt", "hello".getBytes(StandardCharsets.UTF_8), MODIFIED);
+
+    assertThat(service.getHash(resource)).isNull();
+    assertThat(reads).hasValue(0);
+  }
+}
@@ -0,0 +1,117 @@
+package dev.mdz.streaming.euphoria.hotspots;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.mdz.streaming.euphoria.config.HotspotProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+public class HotspotTrackerTest {
+
+  private static List<String> keys(List<Hotspot> ranking) {
+    return ranking.stream().map(Hotspot::getKey).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testTopResourcesAmongManyDistinct() throws Exception {
+    HotspotProperties properties = new HotspotProperties();
+    properties.setEnabled(true);
+    properties.setTopK(3);
+    properties.setWidth(1024);
+    properties.setWindow(Duration.ofHours(1));
+    HotspotTracker tracker = new HotspotTracker(properties, new SimpleMeterRegistry());
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int thread = 0; thread < 4; thread++) {
+      int offset = thread;
+      futures.add(
+          executor.submit(
+              () -> {
+                for (int i = 0; i < 25_000; i++) {
+                  // 100000 distinct resources requested once, three hot ones requested often
+                  tracker.recordResource("cold" + (i * 4 + offset) + ".mp4");
+                  if (i % 10 == 0) {
+                    tracker.recordResource("hot1.mp4");
+                  }
+                  if (i % 20 == 0) {
+                    tracker.recordResource("hot2.mp4");
+                  }
+                  if (i % 40 == 0) {
+                    tracker.recordResource("hot3.mp4");
+                  }
+                }
+              }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    HotspotWindow window = tracker.getCurrentWindow();
+    assertThat(keys(window.getResources())).containsExactly("hot1.mp4", "hot2.mp4", "hot3.mp4");
+    assertThat(window.getResources().get(0).getCount()).isGreaterThanOrEqualTo(10_000);
+    assertThat(window.getRequests()).isEqualTo(100_000 + 10_000 + 5_000 + 2_500);
+  }
+
+  @Test
+  public void testRegionsAndWindows() throws Exception {
+    HotspotProperties properties = new HotspotProperties();
+    properties.setEnabled(true);
+    properties.setBlockSize(DataSize.ofMegabytes(1));
+    properties.setWindow(Duration.ofMillis(200));
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    HotspotTracker tracker = new HotspotTracker(properties, meterRegistry);
+
+    long megabyte = DataSize.ofMegabytes(1).toBytes();
+    // make sure all ranges are counted in the same window
+    while (tracker.getCurrentWindow().getStart().toEpochMilli() + 100
+        < System.currentTimeMillis()) {
+      Thread.sleep(10);
+    }
+    tracker.recordRange("talk.mp4", 0);
+    tracker.recordRange("talk.mp4", 3 * megabyte + 17);
+    tracker.recordRange("talk.mp4", 3 * megabyte + 4711);
+    tracker.recordRange("movie.mp4", 0);
+
+    assertThat(keys(tracker.getCurrentWindow().getRegions()))
+        .containsExactly("talk.mp4@" + 3 * megabyte, "movie.mp4@0", "talk.mp4@0");
+
+    // the window is replaced on reading, without any further request
+    Thread.sleep(250);
+    assertThat(tracker.getPreviousWindow().getRegions()).hasSize(3);
+    assertThat(tracker.getCurrentWindow().getRegions()).isEmpty();
+    assertThat(meterRegistry.get("euphoria.hotspots.regions").tag("rank", "1").gauge().value())
+        .isEqualTo(2);
+    assertThat(meterRegistry.get("euphoria.hotspots.regions").tag("rank", "4").gauge().value())
+        .isZero();
+    // one series per rank, keys are not used as tags
+    assertThat(meterRegistry.get("euphoria.hotspots.regions").gauges())
+        .hasSize(properties.getTopK());
+
+    // a window without requests is reported as empty
+    Thread.sleep(450);
+    assertThat(tracker.getPreviousWindow().getRegions()).isEmpty();
+    assertThat(meterRegistry.get("euphoria.hotspots.regions").tag("rank", "1").gauge().value())
+        .isZero();
+  }
+
+  @Test
+  public void testDisabled() {
+    HotspotTracker tracker = new HotspotTracker(new HotspotProperties(), new SimpleMeterRegistry());
+    tracker.recordResource("talk.mp4");
+    tracker.recordRange("talk.mp4", 0);
+
+    assertThat(tracker.getCurrentWindow()).isNull();
+    assertThat(tracker.getPreviousWindow()).isNull();
+  }
+}
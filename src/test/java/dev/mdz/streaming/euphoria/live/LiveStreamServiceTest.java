@@ -0,0 +1,78 @@
+package dev.mdz.streaming.euphoria.live;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.mdz.streaming.euphoria.config.LiveProperties;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LiveStreamServiceTest {
+
+  @TempDir Path tempDir;
+
+  private LiveStreamService service;
+
+  @BeforeEach
+  public void setUp() {
+    LiveProperties properties = new LiveProperties();
+    properties.setEnabled(true);
+    service = new LiveStreamService(properties, new SimpleMeterRegistry());
+  }
+
+  @AfterEach
+  public void tearDown() {
+    service.shutdown();
+  }
+
+  @Test
+  public void testLivePath() throws Exception {
+    Path file = Files.write(tempDir.resolve("lecture.mp4"), new byte[10]);
+    StreamingResource resource = resource(file.toUri().toString());
+
+    assertThat(service.getLivePath(resource)).isNull();
+
+    Path marker = Files.createFile(tempDir.resolve("lecture.mp4.live"));
+    assertThat(service.getLivePath(resource)).isEqualTo(file);
+
+    Files.delete(marker);
+    assertThat(service.getLivePath(resource)).isNull();
+    assertThat(service.getLivePath(resource("zip:" + file + "!/lecture.mp4"))).isNull();
+  }
+
+  private StreamingResource resource(String location) {
+    return new StreamingResource() {
+      @Override
+      public String getFilename() {
+        return "lecture.mp4";
+      }
+
+      @Override
+      public String getLocation() {
+        return location;
+      }
+
+      @Override
+      public LocalDateTime getLastModified() {
+        return LocalDateTime.now();
+      }
+
+      @Override
+      public long getSizeInBytes() {
+        return 10;
+      }
+
+      @Override
+      public InputStream getInputStream(long position) {
+        return InputStream.nullInputStream();
+      }
+    };
+  }
+}
@@ -0,0 +1,154 @@
+package dev.mdz.streaming.euphoria.resource.archive;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.digitalcollections.model.exception.ResourceIOException;
+import dev.mdz.streaming.euphoria.config.ArchiveProperties;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ArchiveResourceProviderTest {
+
+  private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+  @TempDir Path tempDir;
+
+  private ArchiveResourceProvider provider;
+
+  @BeforeEach
+  public void setUp() {
+    provider = new ArchiveResourceProvider(new ArchiveProperties());
+  }
+
+  @Test
+  public void testStoredZipMember() throws Exception {
+    Path zip = writeZip(ZipEntry.STORED);
+
+    StreamingResource resource = provider.resolve("zip:" + zip + "!/dir/0001.txt");
+
+    assertThat(resource.getFilename()).isEqualTo("0001.txt");
+    assertThat(resource.getSizeInBytes()).isEqualTo(CONTENT.length());
+    assertThat(read(resource, 10)).isEqualTo(CONTENT.substring(10));
+  }
+
+  @Test
+  public void testDeflatedZipMember() throws Exception {
+    Path zip = writeZip(ZipEntry.DEFLATED);
+
+    StreamingResource resource = provider.resolve("zip:" + zip + "!/dir/0001.txt");
+
+    assertThat(resource.getSizeInBytes()).isEqualTo(CONTENT.length());
+    assertThat(read(resource, 0)).isEqualTo(CONTENT);
+    assertThat(read(resource, 30)).isEqualTo(CONTENT.substring(30));
+  }
+
+  @Test
+  public void testMissingZipMember() throws Exception {
+    Path zip = writeZip(ZipEntry.STORED);
+
+    assertThat(provider.resolve("zip:" + zip + "!/dir/0002.txt")).isNull();
+    assertThat(provider.resolve("zip:" + tempDir.resolve("missing.zip") + "!/0001.txt")).isNull();
+  }
+
+  @Test
+  public void testEncryptedZipMember() throws Exception {
+    Path zip = writeZip(ZipEntry.STORED);
+    // set the encryption flag (bit 0 of the general purpose flags) in the central directory
+    byte[] data = Files.readAllBytes(zip);
+    for (int i = data.length - 46; i >= 0; i--) {
+      if (data[i] == 0x50 && data[i + 1] == 0x4b && data[i + 2] == 0x01 && data[i + 3] == 0x02) {
+        data[i + 8] |= 0x1;
+      }
+    }
+    Files.write(zip, data);
+
+    assertThatThrownBy(() -> provider.resolve("zip:" + zip + "!/dir/0001.txt"))
+        .isInstanceOf(ResourceIOException.class)
+        .hasMessageContaining("Encrypted");
+  }
+
+  @Test
+  public void testTarMember() throws Exception {
+    Path tar = tempDir.resolve("batch.tar");
+    try (OutputStream out = Files.newOutputStream(tar)) {
+      writeTarEntry(out, "dir/0000.txt", "other");
+      writeTarEntry(out, "dir/0001.txt", CONTENT);
+      out.write(new byte[1024]);
+    }
+
+    StreamingResource resource = provider.resolve("tar:" + tar + "!/dir/0001.txt");
+
+    assertThat(resource.getSizeInBytes()).isEqualTo(CONTENT.length());
+    assertThat(read(resource, 5)).isEqualTo(CONTENT.substring(5));
+  }
+
+  @Test
+  public void testSupports() {
+    assertThat(provider.supports("zip:/data/batch42.zip!/0001.xml")).isTrue();
+    assertThat(provider.supports("tar:/data/batch42.tar!/0001.xml")).isTrue();
+    assertThat(provider.supports("file:/data/0001.xml")).isFalse();
+  }
+
+  private String read(StreamingResource resource, long position) throws Exception {
+    try (InputStream input = resource.getInputStream(position)) {
+      return new String(input.readAllBytes(), UTF_8);
+    }
+  }
+
+  private Path writeZip(int method) throws IOException {
+    Path zip = tempDir.resolve("batch.zip");
+    byte[] content = CONTENT.getBytes(UTF_8);
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+      out.putNextEntry(new ZipEntry("dir/"));
+      out.closeEntry();
+      ZipEntry entry = new ZipEntry("dir/0001.txt");
+      entry.setMethod(method);
+      if (method == ZipEntry.STORED) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        entry.setSize(content.length);
+        entry.setCompressedSize(content.length);
+        entry.setCrc(crc.getValue());
+      }
+      out.putNextEntry(entry);
+      out.write(content);
+      out.closeEntry();
+    }
+    return zip;
+  }
+
+  private void writeTarEntry(OutputStream out, String name, String content) throws IOException {
+    byte[] data = content.getBytes(UTF_8);
+    byte[] header = new byte[512];
+    System.arraycopy(name.getBytes(US_ASCII), 0, header, 0, name.length());
+    putOctal(header, 100, 8, 0644);
+    putOctal(header, 124, 12, data.length);
+    putOctal(header, 136, 12, 1700000000L);
+    header[156] = '0';
+    System.arraycopy("ustar\u000000".getBytes(US_ASCII), 0, header, 257, 8);
+    out.write(header);
+    ByteArrayOutputStream padded = new ByteArrayOutputStream();
+    padded.write(data);
+    padded.write(new byte[(512 - data.length % 512) % 512]);
+    out.write(padded.toByteArray());
+  }
+
+  private void putOctal(byte[] header, int offset, int length, long value) {
+    String octal = String.format("%0" + (length - 1) + "o", value);
+    System.arraycopy(octal.getBytes(US_ASCII), 0, header, offset, length - 1);
+  }
+}
@@ -0,0 +1,140 @@
+package dev.mdz.streaming.euphoria.resource.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.digitalcollections.model.exception.ResourceIOException;
+import dev.mdz.streaming.euphoria.config.DiskCacheProperties;
+import dev.mdz.streaming.euphoria.resource.FileChannelInputStream;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+public class DiskCacheTest {
+
+  @TempDir Path tempDir;
+
+  private DiskCache cache;
+  private byte[] content;
+  private MeterRegistry meterRegistry;
+  private AtomicInteger originReads;
+  private StreamingResource origin;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    DiskCacheProperties properties = new DiskCacheProperties();
+    properties.setEnabled(true);
+    properties.setDirectory(tempDir.resolve("cache"));
+    properties.setBlockSize(DataSize.ofBytes(1000));
+    properties.setMaxSize(DataSize.ofBytes(3000));
+    properties.setMinHits(1);
+    meterRegistry = new SimpleMeterRegistry();
+    cache = new DiskCache(properties, meterRegistry);
+
+    content = new byte[2500];
+    new Random(42).nextBytes(content);
+    Path file = tempDir.resolve("origin.bin");
+    Files.write(file, content);
+    originReads = new AtomicInteger();
+    origin = new FileOrigin(file);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    cache.shutdown();
+  }
+
+  @Test
+  public void testReadThrough() throws Exception {
+    StreamingResource cached = cache.wrap(origin);
+
+    assertThat(read(cached, 500)).isEqualTo(Arrays.copyOfRange(content, 500, content.length));
+    awaitSize(2500);
+    int readsBefore = originReads.get();
+
+    assertThat(read(cached, 0)).isEqualTo(content);
+    assertThat(read(cached, 1999)).isEqualTo(Arrays.copyOfRange(content, 1999, content.length));
+    assertThat(originReads.get()).isEqualTo(readsBefore);
+    assertThat(meterRegistry.get("euphoria.cache.disk.fill").counter().count()).isEqualTo(2500);
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    read(cache.wrap(origin), 0);
+    awaitSize(2500);
+
+    Path other = tempDir.resolve("other.bin");
+    Files.write(other, content);
+    read(cache.wrap(new FileOrigin(other)), 0);
+
+    Thread.sleep(500);
+    assertThat(cache.getSize()).isLessThanOrEqualTo(3000);
+  }
+
+  private void awaitSize(long expected) throws InterruptedException {
+    for (int i = 0; i < 100 && cache.getSize() != expected; i++) {
+      Thread.sleep(50);
+    }
+    assertThat(cache.getSize()).isEqualTo(expected);
+  }
+
+  private byte[] read(StreamingResource resource, long position) throws Exception {
+    try (InputStream input = resource.getInputStream(position)) {
+      return input.readAllBytes();
+    }
+  }
+
+  private class FileOrigin implements StreamingResource {
+
+    private final Path file;
+
+    FileOrigin(Path file) {
+      this.file = file;
+    }
+
+    @Override
+    public String getFilename() {
+      return file.getFileName().toString();
+    }
+
+    @Override
+    public String getLocation() {
+      return file.toUri().toString();
+    }
+
+    @Override
+    public LocalDateTime getLastModified() {
+      return LocalDateTime.of(2024, 1, 1, 0, 0);
+    }
+
+    @Override
+    public long getSizeInBytes() {
+      return content.length;
+    }
+
+    @Override
+    public InputStream getInputStream(long position) throws ResourceIOException {
+      originReads.incrementAndGet();
+      try {
+        return new FileChannelInputStream(
+            FileChannel.open(file, StandardOpenOption.READ), position, content.length);
+      } catch (IOException e) {
+        throw new ResourceIOException(e);
+      }
+    }
+  }
+}
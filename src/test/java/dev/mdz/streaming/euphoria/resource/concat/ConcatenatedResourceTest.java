@@ -0,0 +1,90 @@
+package dev.mdz.streaming.euphoria.resource.concat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class ConcatenatedResourceTest {
+
+  private static final LocalDateTime MODIFIED = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+  @Test
+  public void testReadAcrossParts() throws Exception {
+    byte[] content = new byte[2500];
+    new Random(42).nextBytes(content);
+    ConcatenatedResource resource =
+        new ConcatenatedResource(
+            "concat:a.mp3,b.mp3,c.mp3,d.mp3",
+            List.of(
+                part("a.mp3", content, 0, 1000, MODIFIED),
+                part("b.mp3", content, 1000, 0, MODIFIED),
+                part("c.mp3", content, 1000, 1000, MODIFIED.plusDays(1)),
+                part("d.mp3", content, 2000, 500, MODIFIED)));
+
+    assertThat(resource.getSizeInBytes()).isEqualTo(2500);
+    assertThat(resource.getLastModified()).isEqualTo(MODIFIED.plusDays(1));
+    assertThat(resource.getFilename()).isEqualTo("a.mp3");
+    for (long position : new long[] {0, 999, 1000, 1001, 1999, 2000, 2499, 2500}) {
+      try (InputStream input = resource.getInputStream(position)) {
+        assertThat(input.readAllBytes())
+            .isEqualTo(Arrays.copyOfRange(content, (int) position, content.length));
+      }
+    }
+  }
+
+  @Test
+  public void testFingerprint() {
+    byte[] content = new byte[100];
+    ConcatenatedResource resource =
+        new ConcatenatedResource(
+            "concat:a.mp3,b.mp3",
+            List.of(
+                part("a.mp3", content, 0, 50, MODIFIED), part("b.mp3", content, 50, 50, MODIFIED)));
+    ConcatenatedResource changed =
+        new ConcatenatedResource(
+            "concat:a.mp3,b.mp3",
+            List.of(
+                part("a.mp3", content, 0, 60, MODIFIED), part("b.mp3", content, 60, 40, MODIFIED)));
+
+    assertThat(resource.getSizeInBytes()).isEqualTo(changed.getSizeInBytes());
+    assertThat(resource.getLastModified()).isEqualTo(changed.getLastModified());
+    assertThat(resource.getFingerprint()).isNotEqualTo(changed.getFingerprint());
+  }
+
+  private StreamingResource part(
+      String filename, byte[] content, int offset, int length, LocalDateTime lastModified) {
+    return new StreamingResource() {
+      @Override
+      public String getFilename() {
+        return filename;
+      }
+
+      @Override
+      public String getLocation() {
+        return "memory:" + filename;
+      }
+
+      @Override
+      public LocalDateTime getLastModified() {
+        return lastModified;
+      }
+
+      @Override
+      public long getSizeInBytes() {
+        return length;
+      }
+
+      @Override
+      public InputStream getInputStream(long position) {
+        return new ByteArrayInputStream(content, offset + (int) position, length - (int) position);
+      }
+    };
+  }
+}
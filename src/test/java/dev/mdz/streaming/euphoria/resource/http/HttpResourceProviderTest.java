@@ -0,0 +1,242 @@
+package dev.mdz.streaming.euphoria.resource.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.digitalcollections.model.exception.ResourceIOException;
+import dev.mdz.streaming.euphoria.config.HttpOriginProperties;
+import dev.mdz.streaming.euphoria.resource.StreamingResource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class HttpResourceProviderTest {
+
+  private static final String ETAG = "\"v1\"";
+  private static final String LAST_MODIFIED = "Wed, 01 Jan 2025 12:00:00 GMT";
+
+  private volatile byte[] content = new byte[10_000];
+  private volatile String eTag = ETAG;
+  private volatile boolean ignoreRanges;
+  private final List<String> requests = new CopyOnWriteArrayList<>();
+  private final CountDownLatch released = new CountDownLatch(1);
+  private String base;
+  private HttpOriginProperties properties;
+  private HttpServer server;
+  private volatile int status = 200;
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    new Random(42).nextBytes(content);
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", this::handle);
+    server.start();
+    base = "http://127.0.0.1:" + server.getAddress().getPort();
+    properties = new HttpOriginProperties();
+    properties.setOpenDuration(Duration.ofMinutes(1));
+  }
+
+  @AfterEach
+  public void stopServer() {
+    released.countDown();
+    server.stop(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    String range = exchange.getRequestHeaders().getFirst("Range");
+    String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+    requests.add(
+        exchange.getRequestMethod()
+            + (range != null ? " " + range : "")
+            + (ifNoneMatch != null ? " " + ifNoneMatch : ""));
+    String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+    if (ignoreRanges || ifRange != null && !ifRange.equals(eTag)) {
+      // respond with the complete content
+      range = null;
+    }
+    try (exchange) {
+      if (status != 200 || exchange.getRequestURI().getPath().contains("missing")) {
+        exchange.sendResponseHeaders(status != 200 ? status : 404, -1);
+        return;
+      }
+      byte[] content = this.content;
+      exchange.getResponseHeaders().set("ETag", eTag);
+      exchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+      if ("HEAD".equals(exchange.getRequestMethod())) {
+        if (eTag.equals(ifNoneMatch)) {
+          exchange.sendResponseHeaders(304, -1);
+          return;
+        }
+        exchange.getResponseHeaders().set("Content-Length", String.valueOf(content.length));
+        exchange.sendResponseHeaders(200, -1);
+        return;
+      }
+      int start = 0;
+      int end = content.length - 1;
+      if (range != null) {
+        String[] bounds = range.substring("bytes=".length()).split("-", -1);
+        start = Integer.parseInt(bounds[0]);
+        if (!bounds[1].isEmpty()) {
+          end = Integer.parseInt(bounds[1]);
+        }
+        exchange
+            .getResponseHeaders()
+            .set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+      }
+      exchange.sendResponseHeaders(range != null ? 206 : 200, end - start + 1);
+      try (OutputStream output = exchange.getResponseBody()) {
+        if (exchange.getRequestURI().getPath().contains("stalling")) {
+          output.write(content, start, 100);
+          output.flush();
+          released.await();
+          return;
+        }
+        output.write(content, start, end - start + 1);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private HttpResourceProvider provider() {
+    return new HttpResourceProvider(properties, new SimpleMeterRegistry());
+  }
+
+  @Test
+  public void testReadRanges() throws Exception {
+    HttpResourceProvider provider = provider();
+    assertThat(provider.supports(base + "/media/talk.mp4")).isTrue();
+    assertThat(provider.supports("file:/media/talk.mp4")).isFalse();
+
+    StreamingResource resource = provider.resolve(base + "/media/talk.mp4");
+    assertThat(resource.getFilename()).isEqualTo("talk.mp4");
+    assertThat(resource.getSizeInBytes()).isEqualTo(content.length);
+    assertThat(resource.getLastModified()).isEqualTo(LocalDateTime.of(2025, 1, 1, 12, 0));
+    assertThat(resource.getFingerprint()).isEqualTo("v1");
+
+    try (InputStream input = resource.getInputStream(1000, 500)) {
+      assertThat(input.readAllBytes()).isEqualTo(Arrays.copyOfRange(content, 1000, 1500));
+    }
+    try (InputStream input = resource.getInputStream(9000)) {
+      assertThat(input.readAllBytes()).isEqualTo(Arrays.copyOfRange(content, 9000, 10_000));
+    }
+    try (InputStream input = resource.getInputStream(0)) {
+      assertThat(input.readAllBytes()).isEqualTo(content);
+    }
+    assertThat(requests).containsExactly("HEAD", "GET bytes=1000-1499", "GET bytes=9000-", "GET");
+  }
+
+  @Test
+  public void testOriginIgnoringRanges() throws Exception {
+    ignoreRanges = true;
+    StreamingResource resource = provider().resolve(base + "/talk.mp4");
+
+    try (InputStream input = resource.getInputStream(1000, 500)) {
+      assertThat(input.readAllBytes()).isEqualTo(Arrays.copyOfRange(content, 1000, 1500));
+    }
+  }
+
+  @Test
+  public void testChangedAtOrigin() throws Exception {
+    HttpResourceProvider provider = provider();
+    StreamingResource resource = provider.resolve(base + "/talk.mp4");
+
+    eTag = "\"v2\"";
+    content = new byte[12_000];
+    assertThatThrownBy(() -> resource.getInputStream(1000, 500))
+        .isInstanceOf(ResourceIOException.class)
+        .hasMessageContaining("changed");
+
+    // the metadata is fetched again instead of being revalidated
+    assertThat(provider.resolve(base + "/talk.mp4").getSizeInBytes()).isEqualTo(12_000);
+    assertThat(requests).containsExactly("HEAD", "GET bytes=1000-1499", "HEAD");
+  }
+
+  @Test
+  public void testStalledBody() throws Exception {
+    properties.setReadTimeout(Duration.ofMillis(200));
+    HttpResourceProvider provider = provider();
+    try {
+      StreamingResource resource = provider.resolve(base + "/stalling.mp4");
+
+      long start = System.nanoTime();
+      try (InputStream input = resource.getInputStream(0, 1000)) {
+        assertThatThrownBy(input::readAllBytes).isInstanceOf(SocketTimeoutException.class);
+      }
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+    } finally {
+      provider.shutdown();
+    }
+  }
+
+  @Test
+  public void testStalledBodyIgnoringRanges() throws Exception {
+    properties.setReadTimeout(Duration.ofMillis(200));
+    ignoreRanges = true;
+    HttpResourceProvider provider = provider();
+    try {
+      StreamingResource resource = provider.resolve(base + "/stalling.mp4");
+
+      // the origin stalls before the requested position is reached
+      long start = System.nanoTime();
+      assertThatThrownBy(() -> resource.getInputStream(500, 1000))
+          .isInstanceOf(ResourceIOException.class)
+          .hasCauseInstanceOf(SocketTimeoutException.class);
+      assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+    } finally {
+      provider.shutdown();
+    }
+  }
+
+  @Test
+  public void testMetadataCache() throws Exception {
+    HttpResourceProvider provider = provider();
+    provider.resolve(base + "/talk.mp4");
+    provider.resolve(base + "/talk.mp4");
+    assertThat(requests).containsExactly("HEAD");
+
+    properties.setMetadataTtl(Duration.ZERO);
+    provider = provider();
+    provider.resolve(base + "/talk.mp4");
+    StreamingResource resource = provider.resolve(base + "/talk.mp4");
+    assertThat(resource.getSizeInBytes()).isEqualTo(content.length);
+    assertThat(requests).containsExactly("HEAD", "HEAD", "HEAD " + ETAG);
+  }
+
+  @Test
+  public void testMissingResource() throws Exception {
+    assertThat(provider().resolve(base + "/missing.mp4")).isNull();
+  }
+
+  @Test
+  public void testCircuitBreaker() throws Exception {
+    properties.setFailureThreshold(2);
+    HttpResourceProvider provider = provider();
+    status = 503;
+    for (int i = 0; i < 3; i++) {
+      assertThatThrownBy(() -> provider.resolve(base + "/talk.mp4"))
+          .isInstanceOf(ResourceIOException.class);
+    }
+    assertThat(requests).hasSize(2);
+    assertThat(provider.isOpen(base)).isTrue();
+
+    // other origins are not affected
+    assertThat(provider.isOpen("http://localhost:" + server.getAddress().getPort())).isFalse();
+  }
+}
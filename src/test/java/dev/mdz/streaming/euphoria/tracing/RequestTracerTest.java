@@ -0,0 +1,72 @@
+package dev.mdz.streaming.euphoria.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.mdz.streaming.euphoria.config.TracingProperties;
+import dev.mdz.streaming.euphoria.tracing.RequestTrace.Phase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+public class RequestTracerTest {
+
+  @Test
+  public void testDisabled() {
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    RequestTracer tracer = new RequestTracer(new TracingProperties(), meterRegistry);
+
+    RequestTrace trace = tracer.start("a", "pdf");
+    trace.mark(Phase.RESOLVE);
+    tracer.finish(trace, 200);
+
+    assertThat(trace).isSameAs(RequestTrace.NOOP);
+    assertThat(trace.getNanos(Phase.RESOLVE)).isZero();
+    assertThat(meterRegistry.find("euphoria.request.phase").timers()).isEmpty();
+  }
+
+  @Test
+  public void testSlowRequests() {
+    TracingProperties properties = new TracingProperties();
+    properties.setEnabled(true);
+    properties.setSlowRequests(2);
+    properties.setSlowThreshold(Duration.ZERO);
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    RequestTracer tracer = new RequestTracer(properties, meterRegistry);
+
+    for (String id : new String[] {"a", "b", "c"}) {
+      RequestTrace trace = tracer.start(id, "pdf");
+      trace.mark(Phase.RESOLVE);
+      trace.mark(Phase.TRANSFER);
+      tracer.finish(trace, 200);
+    }
+
+    assertThat(tracer.getSlowRequests()).extracting(SlowRequest::getId).containsExactly("c", "b");
+    assertThat(tracer.getSlowRequests().get(0).getPhases())
+        .containsOnlyKeys("resolve", "metadata", "headers", "open", "first-read", "transfer");
+    assertThat(meterRegistry.get("euphoria.request.phase").tag("phase", "resolve").timer().count())
+        .isEqualTo(3);
+  }
+
+  @Test
+  public void testSlowTransferIsNotSlowRequest() throws Exception {
+    TracingProperties properties = new TracingProperties();
+    properties.setEnabled(true);
+    properties.setSlowThreshold(Duration.ofMillis(50));
+    RequestTracer tracer = new RequestTracer(properties, new SimpleMeterRegistry());
+
+    RequestTrace download = tracer.start("video", "mp4");
+    download.mark(Phase.OPEN);
+    Thread.sleep(100);
+    download.mark(Phase.TRANSFER);
+    tracer.finish(download, 200);
+    assertThat(tracer.getSlowRequests()).isEmpty();
+
+    RequestTrace slowOpen = tracer.start("video", "mp4");
+    Thread.sleep(100);
+    slowOpen.mark(Phase.OPEN);
+    slowOpen.mark(Phase.TRANSFER);
+    tracer.finish(slowOpen, 200);
+    assertThat(tracer.getSlowRequests()).hasSize(1);
+  }
+}
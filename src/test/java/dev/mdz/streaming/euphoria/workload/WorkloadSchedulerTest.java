@@ -0,0 +1,220 @@
+package dev.mdz.streaming.euphoria.workload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import dev.mdz.streaming.euphoria.config.WorkloadProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.apache.catalina.connector.ClientAbortException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+public class WorkloadSchedulerTest {
+
+  @Test
+  public void testClassify() {
+    WorkloadProperties properties = new WorkloadProperties();
+    properties.setShortLength(DataSize.ofKilobytes(100));
+    properties.setDocumentMaxLength(DataSize.ofMegabytes(10));
+    WorkloadScheduler scheduler = new WorkloadScheduler(properties, new SimpleMeterRegistry());
+
+    assertThat(scheduler.classify("video/mp4", 2)).isEqualTo(WorkloadClass.DOCUMENT);
+    assertThat(scheduler.classify("video/mp4", 200_000)).isEqualTo(WorkloadClass.STREAM);
+    assertThat(scheduler.classify("application/pdf", 200_000)).isEqualTo(WorkloadClass.DOCUMENT);
+    assertThat(scheduler.classify("text/plain", 200_000)).isEqualTo(WorkloadClass.DOCUMENT);
+    assertThat(scheduler.classify("application/pdf", 20_000_000)).isEqualTo(WorkloadClass.STREAM);
+  }
+
+  private static MockHttpServletRequest asyncRequest() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setAsyncSupported(true);
+    return request;
+  }
+
+  private static AtomicInteger countCompletions(MockHttpServletRequest request) {
+    AtomicInteger completions = new AtomicInteger();
+    request
+        .getAsyncContext()
+        .addListener(
+            new AsyncListener() {
+              @Override
+              public void onComplete(AsyncEvent event) {
+                completions.incrementAndGet();
+              }
+
+              @Override
+              public void onTimeout(AsyncEvent event) {}
+
+              @Override
+              public void onError(AsyncEvent event) {}
+
+              @Override
+              public void onStartAsync(AsyncEvent event) {}
+            });
+    return completions;
+  }
+
+  /** Notifies the listeners like the container does if the client goes away. */
+  private static void abort(MockHttpServletRequest request) throws IOException {
+    MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+    for (AsyncListener listener : asyncContext.getListeners()) {
+      listener.onError(new AsyncEvent(asyncContext, new IOException("Connection reset by peer")));
+    }
+  }
+
+  @Test
+  public void testAbortedResponses() throws Exception {
+    WorkloadProperties properties = new WorkloadProperties();
+    properties.setEnabled(true);
+    properties.getStreams().setThreads(1);
+    WorkloadScheduler scheduler = new WorkloadScheduler(properties, new SimpleMeterRegistry());
+    try {
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch released = new CountDownLatch(1);
+      AtomicReference<IOException> runningFailure = new AtomicReference<>();
+      MockHttpServletRequest runningRequest = asyncRequest();
+      MockHttpServletResponse runningResponse = new MockHttpServletResponse();
+      scheduler.execute(
+          WorkloadClass.STREAM,
+          runningRequest,
+          runningResponse,
+          response -> {
+            started.countDown();
+            released.await();
+            try {
+              response.getOutputStream().write(new byte[] {1, 2, 3});
+            } catch (IOException e) {
+              runningFailure.set(e);
+            }
+          });
+      AtomicBoolean queuedRan = new AtomicBoolean();
+      MockHttpServletRequest queuedRequest = asyncRequest();
+      MockHttpServletResponse queuedResponse = new MockHttpServletResponse();
+      scheduler.execute(
+          WorkloadClass.STREAM,
+          queuedRequest,
+          queuedResponse,
+          response -> {
+            queuedRan.set(true);
+            response.getOutputStream().write(new byte[] {1, 2, 3});
+          });
+      MockHttpServletRequest nextRequest = asyncRequest();
+      MockHttpServletResponse nextResponse = new MockHttpServletResponse();
+      scheduler.execute(
+          WorkloadClass.STREAM,
+          nextRequest,
+          nextResponse,
+          response -> response.getOutputStream().write(new byte[] {1, 2, 3}));
+      assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+      AtomicInteger runningCompletions = countCompletions(runningRequest);
+      AtomicInteger queuedCompletions = countCompletions(queuedRequest);
+
+      // both clients go away, the container thread is not blocked by the running task
+      long abortedAt = System.nanoTime();
+      abort(runningRequest);
+      abort(queuedRequest);
+      assertThat(runningRequest.isAsyncStarted()).isFalse();
+      assertThat(queuedRequest.isAsyncStarted()).isFalse();
+      assertThat(Duration.ofNanos(System.nanoTime() - abortedAt)).isLessThan(Duration.ofSeconds(1));
+      released.countDown();
+
+      for (int i = 0; i < 100 && nextRequest.isAsyncStarted(); i++) {
+        Thread.sleep(50);
+      }
+      assertThat(nextRequest.isAsyncStarted()).isFalse();
+      assertThat(nextResponse.getContentAsByteArray()).containsExactly(1, 2, 3);
+
+      assertThat(runningFailure.get()).isInstanceOf(ClientAbortException.class);
+      assertThat(runningResponse.getContentAsByteArray()).isEmpty();
+      assertThat(queuedRan).isFalse();
+      assertThat(queuedResponse.getContentAsByteArray()).isEmpty();
+      // aborted responses are completed once, when the client went away
+      assertThat(runningCompletions).hasValue(1);
+      assertThat(queuedCompletions).hasValue(1);
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  @Test
+  public void testAbortDuringWrite() throws Exception {
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch released = new CountDownLatch(1);
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    ServletOutputStream blockingOutput =
+        new ServletOutputStream() {
+          @Override
+          public boolean isReady() {
+            return true;
+          }
+
+          @Override
+          public void setWriteListener(WriteListener writeListener) {}
+
+          @Override
+          public void write(int b) throws IOException {
+            writing.countDown();
+            try {
+              released.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            written.write(b);
+          }
+        };
+    AbortableResponse response =
+        new AbortableResponse(
+            new HttpServletResponseWrapper(new MockHttpServletResponse()) {
+              @Override
+              public ServletOutputStream getOutputStream() {
+                return blockingOutput;
+              }
+            });
+    ServletOutputStream output = response.getOutputStream();
+    Thread writer =
+        new Thread(
+            () -> {
+              try {
+                output.write(1);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+    writer.start();
+    assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // the client goes away while a write is in progress: the response is not completed (and
+    // recycled) before the write is done
+    CountDownLatch completed = new CountDownLatch(1);
+    Thread container = new Thread(() -> response.abort(completed::countDown));
+    container.start();
+    assertThat(completed.await(200, TimeUnit.MILLISECONDS)).isFalse();
+    released.countDown();
+    assertThat(completed.await(5, TimeUnit.SECONDS)).isTrue();
+    writer.join(5000);
+    container.join(5000);
+    assertThat(written.toByteArray()).containsExactly(1);
+
+    // later writes don't reach the response anymore
+    assertThat(output.isReady()).isFalse();
+    assertThatThrownBy(() -> output.write(2)).isInstanceOf(ClientAbortException.class);
+    assertThat(written.toByteArray()).containsExactly(1);
+  }
+}